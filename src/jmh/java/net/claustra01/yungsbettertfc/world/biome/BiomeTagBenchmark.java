@@ -0,0 +1,106 @@
+package net.claustra01.yungsbettertfc.world.biome;
+
+import com.mojang.serialization.Lifecycle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderSet;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.RegistrationInfo;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.biome.Biome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Biome tag membership for a batch of candidate positions: the holder-set check vanilla does vs. the bitsets.
+ *
+ * <p>TFC's biomes aren't on the benchmark classpath, so the vanilla biomes stand in, with every other one in the
+ * land tag.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BiomeTagBenchmark {
+    private static final int SAMPLES = 1024;
+
+    private HolderSet<Biome> land;
+    private Predicate<Holder<Biome>> landBits;
+    private Holder<Biome>[] samples;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        List<Holder<Biome>> all = new ArrayList<>();
+        VanillaRegistries.createLookup()
+                .lookupOrThrow(Registries.BIOME)
+                .listElements()
+                .forEach(biome -> all.add(registry.register(biome.key(), biome.value(), RegistrationInfo.BUILT_IN)));
+        registry.freeze();
+
+        List<Holder<Biome>> members = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += 2) {
+            members.add(all.get(i));
+        }
+        registry.bindTags(Map.of(BiomeTagBits.TFC_LAND_BIOMES, members));
+        BiomeTagBits.rebuild(registry);
+
+        land = registry.getTag(BiomeTagBits.TFC_LAND_BIOMES).orElseThrow();
+        landBits = BiomeTagBits.predicateFor(land, land::contains);
+
+        Random random = new Random(42);
+        samples = new Holder[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = all.get(random.nextInt(all.size()));
+        }
+    }
+
+    @Benchmark
+    public int holderSet() {
+        int count = 0;
+        for (Holder<Biome> biome : samples) {
+            if (land.contains(biome)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int bitset() {
+        int count = 0;
+        for (Holder<Biome> biome : samples) {
+            if (landBits.test(biome)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int bitsetByTag() {
+        int count = 0;
+        for (Holder<Biome> biome : samples) {
+            if (BiomeTagBits.contains(BiomeTagBits.TFC_LAND_BIOMES, biome)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
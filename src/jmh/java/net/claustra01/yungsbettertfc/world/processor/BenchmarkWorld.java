@@ -0,0 +1,227 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.util.CrudeIncrementalIntIdentityHashBiMap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.FenceBlock;
+import net.minecraft.world.level.block.RotatedPillarBlock;
+import net.minecraft.world.level.block.SlabBlock;
+import net.minecraft.world.level.block.StairBlock;
+import net.minecraft.world.level.block.WallBlock;
+import net.minecraft.world.level.block.state.BlockBehaviour;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.ticks.ProtoChunkTicks;
+
+/**
+ * Game bootstrap and stand-ins for the benchmarks.
+ *
+ * <p>TFC isn't on the benchmark classpath, so its rock, soil, ore and wood blocks are registered as plain stand-ins
+ * (mimicking the shape of the vanilla block they replace) before the replacement table is built. Registering them
+ * relies on NeoForge's {@link MappedRegistry#unfreeze()}.</p>
+ */
+final class BenchmarkWorld {
+    static final List<String> ROCKS = List.of("granite", "basalt", "limestone", "shale", "diorite");
+    static final List<String> SOILS = List.of("mollisol", "loam", "silt");
+    // What normalizeWood can produce for the vanilla woods.
+    private static final List<String> WOODS = List.of("oak", "spruce", "birch", "acacia", "mangrove");
+    private static final Map<String, Block> ORES = Map.of(
+            "ore/normal_lignite", Blocks.COAL_ORE,
+            "ore/normal_hematite", Blocks.IRON_ORE,
+            "ore/normal_native_copper", Blocks.COPPER_ORE,
+            "ore/normal_native_gold", Blocks.GOLD_ORE,
+            "ore/normal_lapis_lazuli", Blocks.LAPIS_ORE,
+            "ore/normal_diamond", Blocks.DIAMOND_ORE,
+            "ore/normal_emerald", Blocks.EMERALD_ORE,
+            "ore/normal_cinnabar", Blocks.REDSTONE_ORE,
+            "ore/normal_quartz", Blocks.NETHER_QUARTZ_ORE);
+
+    static final int MIN_Y = -64;
+    static final int HEIGHT = 384;
+
+    private static boolean initialized;
+
+    private BenchmarkWorld() {}
+
+    static synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        registerTfcStandIns();
+        ReplacementTable.get();
+        initialized = true;
+    }
+
+    static Block tfc(String path) {
+        return BuiltInRegistries.BLOCK.get(ResourceLocation.fromNamespaceAndPath(TfcBlockReplacementProcessor.NS_TFC, path));
+    }
+
+    /**
+     * A level holding a single chunk at (0, 0): {@code rock} up to y=60, {@code soil} from 61 to 63, air above. Only
+     * the calls the processor makes are implemented.
+     */
+    static LevelReader column(Block rock, Block soil) {
+        CrudeIncrementalIntIdentityHashBiMap<Holder<Biome>> biomeIds = CrudeIncrementalIntIdentityHashBiMap.create(1);
+        Holder<Biome> noBiome = Holder.direct(null);
+        biomeIds.add(noBiome);
+
+        LevelHeightAccessor heightAccessor = LevelHeightAccessor.create(MIN_Y, HEIGHT);
+        LevelChunkSection[] sections = new LevelChunkSection[HEIGHT >> 4];
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = new LevelChunkSection(
+                    new PalettedContainer<>(
+                            Block.BLOCK_STATE_REGISTRY, Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES),
+                    new PalettedContainer<>(biomeIds, noBiome, PalettedContainer.Strategy.SECTION_BIOMES));
+        }
+        for (int y = MIN_Y; y < 64; y++) {
+            BlockState state = (y > 60 ? soil : rock).defaultBlockState();
+            LevelChunkSection section = sections[(y - MIN_Y) >> 4];
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    section.setBlockState(x, y & 15, z, state, false);
+                }
+            }
+        }
+        ProtoChunk chunk = new ProtoChunk(
+                ChunkPos.ZERO,
+                UpgradeData.EMPTY,
+                sections,
+                new ProtoChunkTicks<>(),
+                new ProtoChunkTicks<>(),
+                heightAccessor,
+                null,
+                null);
+
+        return (LevelReader) Proxy.newProxyInstance(
+                LevelReader.class.getClassLoader(), new Class<?>[] {LevelReader.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if ("getChunk".equals(name) && args != null && args.length == 4) {
+                        return (int) args[0] == 0 && (int) args[1] == 0 ? chunk : null;
+                    }
+                    if ("getMinBuildHeight".equals(name)) {
+                        return MIN_Y;
+                    }
+                    if ("getHeight".equals(name) && args == null) {
+                        return HEIGHT;
+                    }
+                    if ("hashCode".equals(name)) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if ("equals".equals(name)) {
+                        return proxy == args[0];
+                    }
+                    if ("toString".equals(name)) {
+                        return "BenchmarkLevel";
+                    }
+                    throw new UnsupportedOperationException(name);
+                });
+    }
+
+    private static void registerTfcStandIns() {
+        MappedRegistry<Block> blocks = (MappedRegistry<Block>) BuiltInRegistries.BLOCK;
+        blocks.unfreeze();
+
+        // Things the mapping chain probes for existence must be there before the chain first runs.
+        Map<ResourceLocation, Block> seeds = new LinkedHashMap<>();
+        for (String rock : ROCKS) {
+            seeds.put(id("rock/raw/" + rock), Blocks.STONE);
+        }
+        for (String soil : SOILS) {
+            seeds.put(id("dirt/" + soil), Blocks.DIRT);
+        }
+        ORES.forEach((path, like) -> seeds.put(id(path), like));
+        for (String wood : WOODS) {
+            for (String prefix : TfcRefs.WOOD_PREFIXES) {
+                seeds.put(id(prefix + wood), prefix.contains("log") || prefix.endsWith("/wood/")
+                        ? Blocks.OAK_LOG
+                        : Blocks.OAK_PLANKS);
+            }
+            seeds.put(id("wood/planks/" + wood), Blocks.OAK_PLANKS);
+            seeds.put(id("wood/planks/" + wood + "_stairs"), Blocks.OAK_STAIRS);
+            seeds.put(id("wood/planks/" + wood + "_slab"), Blocks.OAK_SLAB);
+        }
+        seeds.forEach(BenchmarkWorld::register);
+
+        // Everything else the chain can produce for the stand-in rocks and soils.
+        Map<ResourceLocation, Block> produced = new LinkedHashMap<>();
+        for (Map.Entry<ResourceKey<Block>, Block> entry : BuiltInRegistries.BLOCK.entrySet()) {
+            ResourceLocation vanilla = entry.getKey().location();
+            if (!TfcBlockReplacementProcessor.NS_MINECRAFT.equals(vanilla.getNamespace())) {
+                continue;
+            }
+            for (String rock : ROCKS) {
+                for (String soil : SOILS) {
+                    @Nullable ResourceLocation target = TfcBlockReplacementProcessor.mapVanillaToTfc(
+                            vanilla.getPath(),
+                            rock,
+                            soil,
+                            TfcBlockReplacementProcessor.DEFAULT_WOOD,
+                            false,
+                            TfcBlockReplacementProcessor.ReplacementScope.FULL,
+                            false);
+                    if (target != null
+                            && TfcBlockReplacementProcessor.NS_TFC.equals(target.getNamespace())
+                            && !BuiltInRegistries.BLOCK.containsKey(target)) {
+                        produced.putIfAbsent(target, entry.getValue());
+                    }
+                }
+            }
+        }
+        produced.forEach(BenchmarkWorld::register);
+
+        blocks.freeze();
+    }
+
+    private static void register(ResourceLocation id, Block like) {
+        Block block = standIn(like);
+        Registry.register(BuiltInRegistries.BLOCK, id, block);
+        block.getStateDefinition().getPossibleStates().forEach(Block.BLOCK_STATE_REGISTRY::add);
+    }
+
+    /** A block with the same state properties as the common vanilla shapes, so property copying is representative. */
+    private static Block standIn(Block like) {
+        BlockBehaviour.Properties properties = BlockBehaviour.Properties.ofFullCopy(like);
+        if (like instanceof StairBlock) {
+            return new StairBlock(Blocks.STONE.defaultBlockState(), properties);
+        }
+        if (like instanceof SlabBlock) {
+            return new SlabBlock(properties);
+        }
+        if (like instanceof WallBlock) {
+            return new WallBlock(properties);
+        }
+        if (like instanceof FenceBlock) {
+            return new FenceBlock(properties);
+        }
+        if (like instanceof RotatedPillarBlock) {
+            return new RotatedPillarBlock(properties);
+        }
+        return new Block(properties);
+    }
+
+    private static ResourceLocation id(String path) {
+        return ResourceLocation.fromNamespaceAndPath(TfcBlockReplacementProcessor.NS_TFC, path);
+    }
+}
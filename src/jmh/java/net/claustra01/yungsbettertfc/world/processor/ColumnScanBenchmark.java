@@ -0,0 +1,39 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import java.util.concurrent.TimeUnit;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.LevelReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Rock/soil resolution for one placement origin, by how far above the ground the origin sits. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColumnScanBenchmark {
+    @Param({"0", "16", "48"})
+    public int airAbove;
+
+    private LevelReader level;
+    private BlockPos origin;
+    private ReplacementTable table;
+
+    @Setup
+    public void setup() {
+        BenchmarkWorld.init();
+        level = BenchmarkWorld.column(BenchmarkWorld.tfc("rock/raw/shale"), BenchmarkWorld.tfc("dirt/loam"));
+        origin = new BlockPos(7, 63 + airAbove, 7);
+        table = ReplacementTable.get();
+    }
+
+    @Benchmark
+    public long resolve() {
+        return ColumnContextResolver.resolve(level, origin, table);
+    }
+}
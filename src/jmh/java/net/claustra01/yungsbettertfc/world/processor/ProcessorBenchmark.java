@@ -0,0 +1,55 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Whole-piece processing of a real template from each namespace, per-block and batched. Scores are ns per block. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(TemplatePieces.SIZE)
+public class ProcessorBenchmark {
+    @Param({"betterstrongholds", "betterdungeons", "betteroceanmonuments", "betterfortresses", "beneath"})
+    public String namespace;
+
+    private final BlockPos offset = new BlockPos(0, 64, 0);
+    private List<StructureTemplate.StructureBlockInfo> blocks;
+    private LevelReader level;
+    private StructurePlaceSettings settings;
+
+    @Setup
+    public void setup() {
+        BenchmarkWorld.init();
+        blocks = TemplatePieces.piece(namespace);
+        level = BenchmarkWorld.column(BenchmarkWorld.tfc("rock/raw/shale"), BenchmarkWorld.tfc("dirt/loam"));
+        settings = new StructurePlaceSettings();
+    }
+
+    @Benchmark
+    public void perBlock(Blackhole blackhole) {
+        for (StructureTemplate.StructureBlockInfo info : blocks) {
+            blackhole.consume(TfcBlockReplacementProcessor.INSTANCE.process(level, offset, offset, info, info, settings, null));
+        }
+    }
+
+    @Benchmark
+    public List<StructureTemplate.StructureBlockInfo> batch() {
+        PlacementContext context = PlacementContext.create(null, offset, null);
+        return TfcBlockReplacementProcessor.processBatch(level, offset, context, new ArrayList<>(blocks));
+    }
+}
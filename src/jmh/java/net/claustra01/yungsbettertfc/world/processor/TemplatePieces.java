@@ -0,0 +1,197 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.util.datafix.DataFixTypes;
+import net.minecraft.util.datafix.DataFixers;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+
+/**
+ * Block lists of real YUNG template pieces, one per structure namespace.
+ *
+ * <p>Templates are read from the mod jars (or unpacked pack roots) listed in the {@code yungsbettertfc.bench.templates}
+ * system property, separated by the path separator; a directory that isn't a pack root is searched for jars. The
+ * {@code jmh} task points it at {@code run/mods}. For each namespace the largest {@code .nbt} under
+ * {@code data/<namespace>/structure/} is used, data-fixed the way the template manager does.</p>
+ *
+ * <p>Every piece is cycled to {@link #SIZE} blocks so benchmarks can report per-block cost through
+ * {@code @OperationsPerInvocation(TemplatePieces.SIZE)}.</p>
+ */
+final class TemplatePieces {
+    static final int SIZE = 4096;
+    static final String SOURCES_PROPERTY = "yungsbettertfc.bench.templates";
+
+    private static final Map<String, Template> LOADED = new HashMap<>();
+
+    private TemplatePieces() {}
+
+    record Template(String id, List<StructureTemplate.StructureBlockInfo> blocks) {}
+
+    /** The real template for {@code namespace}, cycled to {@link #SIZE} blocks. */
+    static List<StructureTemplate.StructureBlockInfo> piece(String namespace) {
+        List<StructureTemplate.StructureBlockInfo> blocks = template(namespace).blocks();
+        List<StructureTemplate.StructureBlockInfo> piece = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            piece.add(blocks.get(i % blocks.size()));
+        }
+        return piece;
+    }
+
+    /** The real template for {@code namespace}, as stored. Fails if no configured source has one. */
+    static synchronized Template template(String namespace) {
+        @Nullable Template template = LOADED.get(namespace);
+        if (template == null) {
+            template = load(namespace);
+            LOADED.put(namespace, template);
+        }
+        return template;
+    }
+
+    private static Template load(String namespace) {
+        String prefix = "data/" + namespace + "/structure/";
+        @Nullable Candidate largest = null;
+        for (Path source : sources()) {
+            for (Candidate candidate : candidates(source, prefix)) {
+                if (largest == null
+                        || candidate.size > largest.size
+                        || (candidate.size == largest.size && candidate.name.compareTo(largest.name) < 0)) {
+                    largest = candidate;
+                }
+            }
+        }
+        if (largest == null) {
+            throw new IllegalStateException("No " + namespace + " templates in -D" + SOURCES_PROPERTY + "="
+                    + System.getProperty(SOURCES_PROPERTY) + "; put the YUNG mod jars there");
+        }
+
+        String id = namespace + ":" + largest.name.substring(prefix.length(), largest.name.length() - ".nbt".length());
+        List<StructureTemplate.StructureBlockInfo> blocks = blocks(read(largest));
+        if (blocks.isEmpty()) {
+            throw new IllegalStateException("Template " + id + " has no blocks");
+        }
+        return new Template(id, Collections.unmodifiableList(blocks));
+    }
+
+    private record Candidate(Path source, String name, long size) {}
+
+    private static List<Path> sources() {
+        @Nullable String property = System.getProperty(SOURCES_PROPERTY);
+        if (property == null || property.isBlank()) {
+            throw new IllegalStateException("-D" + SOURCES_PROPERTY + " is not set");
+        }
+        List<Path> sources = new ArrayList<>();
+        for (String entry : property.split(File.pathSeparator)) {
+            Path path = Path.of(entry);
+            if (Files.isDirectory(path) && !Files.isDirectory(path.resolve("data"))) {
+                try (Stream<Path> jars = Files.list(path)) {
+                    jars.filter(jar -> jar.getFileName().toString().endsWith(".jar")).sorted().forEach(sources::add);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else if (Files.exists(path)) {
+                sources.add(path);
+            }
+        }
+        return sources;
+    }
+
+    private static List<Candidate> candidates(Path source, String prefix) {
+        List<Candidate> candidates = new ArrayList<>();
+        try {
+            if (Files.isDirectory(source)) {
+                Path root = source.resolve(prefix);
+                if (Files.isDirectory(root)) {
+                    try (Stream<Path> files = Files.walk(root)) {
+                        for (Path file : files.filter(Files::isRegularFile).toList()) {
+                            String name = source.relativize(file).toString().replace(File.separatorChar, '/');
+                            if (name.endsWith(".nbt")) {
+                                candidates.add(new Candidate(source, name, Files.size(file)));
+                            }
+                        }
+                    }
+                }
+            } else {
+                try (ZipFile zip = new ZipFile(source.toFile())) {
+                    zip.stream()
+                            .filter(entry -> !entry.isDirectory()
+                                    && entry.getName().startsWith(prefix)
+                                    && entry.getName().endsWith(".nbt"))
+                            .forEach(entry -> candidates.add(new Candidate(source, entry.getName(), entry.getSize())));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list " + source, e);
+        }
+        candidates.sort(Comparator.comparing(Candidate::name));
+        return candidates;
+    }
+
+    private static CompoundTag read(Candidate candidate) {
+        try {
+            CompoundTag tag;
+            if (Files.isDirectory(candidate.source)) {
+                try (InputStream in = Files.newInputStream(candidate.source.resolve(candidate.name))) {
+                    tag = NbtIo.readCompressed(in, NbtAccounter.unlimitedHeap());
+                }
+            } else {
+                try (ZipFile zip = new ZipFile(candidate.source.toFile())) {
+                    ZipEntry entry = zip.getEntry(candidate.name);
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        tag = NbtIo.readCompressed(in, NbtAccounter.unlimitedHeap());
+                    }
+                }
+            }
+            // As StructureTemplateManager#readStructure does.
+            return DataFixTypes.STRUCTURE.updateToCurrentVersion(
+                    DataFixers.getDataFixer(), tag, NbtUtils.getDataVersion(tag, 500));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + candidate.name + " from " + candidate.source, e);
+        }
+    }
+
+    /** The template's blocks in its first palette, with their block entity NBT, in stored order. */
+    private static List<StructureTemplate.StructureBlockInfo> blocks(CompoundTag tag) {
+        ListTag palette = tag.contains("palettes", Tag.TAG_LIST)
+                ? tag.getList("palettes", Tag.TAG_LIST).getList(0)
+                : tag.getList("palette", Tag.TAG_COMPOUND);
+        BlockState[] states = new BlockState[palette.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = NbtUtils.readBlockState(BuiltInRegistries.BLOCK.asLookup(), palette.getCompound(i));
+        }
+
+        ListTag entries = tag.getList("blocks", Tag.TAG_COMPOUND);
+        List<StructureTemplate.StructureBlockInfo> blocks = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            CompoundTag entry = entries.getCompound(i);
+            ListTag pos = entry.getList("pos", Tag.TAG_INT);
+            blocks.add(new StructureTemplate.StructureBlockInfo(
+                    new BlockPos(pos.getInt(0), pos.getInt(1), pos.getInt(2)),
+                    states[entry.getInt("state")],
+                    entry.contains("nbt", Tag.TAG_COMPOUND) ? entry.getCompound("nbt") : null));
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,83 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.StairBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per-block building blocks of the processor, over the real templates' stairs and jigsaws: property copying and
+ * final_state rewriting. Scores are ns per block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(TemplatePieces.SIZE)
+public class TranslationBenchmark {
+    private BlockState[] states;
+    private Block[] targets;
+    private CompoundTag[] nbt;
+
+    @Setup
+    public void setup() {
+        BenchmarkWorld.init();
+        Block stairs = BenchmarkWorld.tfc("rock/bricks/granite_stairs");
+        Block planks = BenchmarkWorld.tfc("wood/planks/spruce_stairs");
+
+        // The stairs and the final_state jigsaws of the real templates, which is where property copying and
+        // final_state rewriting actually happen.
+        List<BlockState> stairStates = new ArrayList<>();
+        List<CompoundTag> jigsaws = new ArrayList<>();
+        for (String namespace : TfcBlockReplacementProcessor.STRUCTURE_NAMESPACES.stream().sorted().toList()) {
+            for (StructureTemplate.StructureBlockInfo info : TemplatePieces.template(namespace).blocks()) {
+                if (info.state().getBlock() instanceof StairBlock) {
+                    stairStates.add(info.state());
+                }
+                if (info.nbt() != null && info.nbt().contains("final_state")) {
+                    jigsaws.add(info.nbt());
+                }
+            }
+        }
+        if (stairStates.isEmpty() || jigsaws.isEmpty()) {
+            throw new IllegalStateException("The templates have no stairs or no final_state jigsaws");
+        }
+
+        states = new BlockState[TemplatePieces.SIZE];
+        targets = new Block[TemplatePieces.SIZE];
+        nbt = new CompoundTag[TemplatePieces.SIZE];
+        for (int i = 0; i < TemplatePieces.SIZE; i++) {
+            states[i] = stairStates.get(i % stairStates.size());
+            targets[i] = states[i].is(BlockTags.WOODEN_STAIRS) ? planks : stairs;
+            nbt[i] = jigsaws.get(i % jigsaws.size());
+        }
+    }
+
+    @Benchmark
+    public void translateState(Blackhole blackhole) {
+        BlockStateTranslator translator = BlockStateTranslator.get();
+        for (int i = 0; i < states.length; i++) {
+            blackhole.consume(translator.translate(states[i], targets[i]));
+        }
+    }
+
+    @Benchmark
+    public void rewriteFinalState(Blackhole blackhole) {
+        for (CompoundTag tag : nbt) {
+            blackhole.consume(TfcBlockReplacementProcessor.replaceVanillaOreInStructureNbt(tag));
+        }
+    }
+}
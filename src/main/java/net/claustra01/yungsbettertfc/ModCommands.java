@@ -0,0 +1,77 @@
+package net.claustra01.yungsbettertfc;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.logging.LogUtils;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.world.processor.TemplateConverter;
+import net.minecraft.Util;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.neoforged.neoforge.event.RegisterCommandsEvent;
+import org.slf4j.Logger;
+
+public final class ModCommands {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final AtomicBoolean CONVERTING = new AtomicBoolean();
+
+    private ModCommands() {}
+
+    public static void register(RegisterCommandsEvent event) {
+        // Works from a dedicated server console, so conversion doesn't need a client.
+        event.getDispatcher().register(Commands.literal(YungsBetterTfc.MODID)
+                .requires(source -> source.hasPermission(Commands.LEVEL_OWNERS))
+                .then(Commands.literal("convert_templates").executes(ModCommands::convertTemplates)));
+    }
+
+    private static int convertTemplates(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        if (!CONVERTING.compareAndSet(false, true)) {
+            source.sendFailure(Component.literal("Templates are already being converted."));
+            return 0;
+        }
+
+        // Reading and writing every template takes a while; keep it off the server thread so the game doesn't stall.
+        MinecraftServer server = source.getServer();
+        source.sendSuccess(() -> Component.literal("Converting templates in the background..."), true);
+        CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return TemplateConverter.convertAll(server);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, Util.ioPool())
+                .whenComplete((result, error) -> {
+                    CONVERTING.set(false);
+                    server.execute(() -> report(source, result, error));
+                });
+        return 1;
+    }
+
+    private static void report(
+            CommandSourceStack source, TemplateConverter.Result result, @Nullable Throwable error) {
+        if (error != null) {
+            // Unwrap the CompletionException (and the UncheckedIOException around IO failures).
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            LOGGER.error("Failed to write converted templates", cause);
+            source.sendFailure(Component.literal("Failed to write converted templates: " + cause.getMessage()));
+            return;
+        }
+
+        source.sendSuccess(
+                () -> Component.literal(String.format(
+                        "Converted %d templates (%d unchanged, %d failed) into %s. Enable the pack and /reload to use"
+                                + " them.",
+                        result.converted(),
+                        result.unchanged(),
+                        result.failed(),
+                        result.pack())),
+                true);
+    }
+}
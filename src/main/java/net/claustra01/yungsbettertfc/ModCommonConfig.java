@@ -0,0 +1,49 @@
+package net.claustra01.yungsbettertfc;
+
+import net.neoforged.fml.ModContainer;
+import net.neoforged.fml.config.ModConfig;
+import net.neoforged.neoforge.common.ModConfigSpec;
+
+public final class ModCommonConfig {
+    private ModCommonConfig() {}
+
+    private static final ModConfigSpec.Builder BUILDER = new ModConfigSpec.Builder();
+
+    private static final ModConfigSpec.IntValue CONTEXT_CACHE_SIZE = BUILDER
+            .comment(
+                    "Number of structure placement origins whose rock/soil/wood context is kept in memory.",
+                    "The cache is shared by all worldgen threads; raise it for servers with many worker threads.")
+            .defineInRange("contextCacheSize", 8192, 256, 1 << 20);
+
+    private static final ModConfigSpec.BooleanValue PREFETCH_CONTEXT = BUILDER
+            .comment(
+                    "Resolve a new structure's rock/soil context as soon as the ground under it is carved, once for",
+                    "the whole structure, instead of when its first piece is placed.")
+            .define("prefetchContext", true);
+
+    private static final ModConfigSpec.BooleanValue PRELOAD_TEMPLATES = BUILDER
+            .comment(
+                    "Load and analyze every supported structure template in parallel in the background while the",
+                    "server starts, instead of the first time a structure uses it. Avoids a hitch at the first",
+                    "stronghold/fortress at the cost of a few busy seconds after startup.")
+            .define("preloadTemplates", false);
+
+    private static final ModConfigSpec SPEC = BUILDER.build();
+
+    public static void register(ModContainer modContainer) {
+        modContainer.registerConfig(ModConfig.Type.COMMON, SPEC);
+    }
+
+    public static int contextCacheSize() {
+        // Fall back to the default if something asks before the config has loaded.
+        return SPEC.isLoaded() ? CONTEXT_CACHE_SIZE.getAsInt() : CONTEXT_CACHE_SIZE.getDefault();
+    }
+
+    public static boolean prefetchContext() {
+        return SPEC.isLoaded() ? PREFETCH_CONTEXT.getAsBoolean() : PREFETCH_CONTEXT.getDefault();
+    }
+
+    public static boolean preloadTemplates() {
+        return SPEC.isLoaded() ? PRELOAD_TEMPLATES.getAsBoolean() : PRELOAD_TEMPLATES.getDefault();
+    }
+}
@@ -0,0 +1,26 @@
+package net.claustra01.yungsbettertfc;
+
+import net.claustra01.yungsbettertfc.world.loot.SharedTableEntry;
+import net.claustra01.yungsbettertfc.world.loot.WeightedTagEntry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.world.level.storage.loot.entries.LootPoolEntryType;
+import net.neoforged.bus.api.IEventBus;
+import net.neoforged.neoforge.registries.DeferredHolder;
+import net.neoforged.neoforge.registries.DeferredRegister;
+
+public final class ModLootEntries {
+    private ModLootEntries() {}
+
+    private static final DeferredRegister<LootPoolEntryType> LOOT_POOL_ENTRY_TYPES =
+            DeferredRegister.create(Registries.LOOT_POOL_ENTRY_TYPE, YungsBetterTfc.MODID);
+
+    public static final DeferredHolder<LootPoolEntryType, LootPoolEntryType> SHARED_TABLE =
+            LOOT_POOL_ENTRY_TYPES.register("shared_table", () -> new LootPoolEntryType(SharedTableEntry.CODEC));
+
+    public static final DeferredHolder<LootPoolEntryType, LootPoolEntryType> WEIGHTED_TAG =
+            LOOT_POOL_ENTRY_TYPES.register("weighted_tag", () -> new LootPoolEntryType(WeightedTagEntry.CODEC));
+
+    public static void register(IEventBus modEventBus) {
+        LOOT_POOL_ENTRY_TYPES.register(modEventBus);
+    }
+}
@@ -1,13 +1,57 @@
 package net.claustra01.yungsbettertfc;
 
+import net.claustra01.yungsbettertfc.world.biome.BiomeTagBits;
+import net.claustra01.yungsbettertfc.world.loot.SharedLootTables;
+import net.claustra01.yungsbettertfc.world.loot.WeightedTagEntry;
+import net.claustra01.yungsbettertfc.world.processor.BlockReplacementRules;
+import net.claustra01.yungsbettertfc.world.processor.ColumnSummaries;
+import net.claustra01.yungsbettertfc.world.processor.ContextPrefetcher;
+import net.claustra01.yungsbettertfc.world.processor.ReplacementTable;
+import net.claustra01.yungsbettertfc.world.processor.StructureContexts;
+import net.claustra01.yungsbettertfc.world.processor.TemplatePreloader;
+import net.claustra01.yungsbettertfc.world.processor.TfcBlockReplacementProcessor;
 import net.neoforged.bus.api.IEventBus;
+import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.Mod;
+import net.neoforged.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.event.AddReloadListenerEvent;
+import net.neoforged.neoforge.event.server.ServerStoppingEvent;
 
 @Mod(YungsBetterTfc.MODID)
 public final class YungsBetterTfc {
     public static final String MODID = "yungsbettertfc";
 
-    public YungsBetterTfc(IEventBus modEventBus) {
+    public YungsBetterTfc(IEventBus modEventBus, ModContainer modContainer) {
+        ModCommonConfig.register(modContainer);
         ModStructureProcessors.register(modEventBus);
+        ModLootEntries.register(modEventBus);
+        modEventBus.addListener(YungsBetterTfc::onCommonSetup);
+        NeoForge.EVENT_BUS.addListener(YungsBetterTfc::onAddReloadListeners);
+        NeoForge.EVENT_BUS.addListener(BiomeTagBits::onTagsUpdated);
+        NeoForge.EVENT_BUS.addListener(SharedLootTables::onTagsUpdated);
+        NeoForge.EVENT_BUS.addListener(WeightedTagEntry::onTagsUpdated);
+        NeoForge.EVENT_BUS.addListener(ModCommands::register);
+        NeoForge.EVENT_BUS.addListener(ColumnSummaries::onLevelLoad);
+        NeoForge.EVENT_BUS.addListener(ColumnSummaries::onLevelUnload);
+        NeoForge.EVENT_BUS.addListener(TemplatePreloader::onServerAboutToStart);
+        NeoForge.EVENT_BUS.addListener(YungsBetterTfc::onServerStopping);
+    }
+
+    private static void onCommonSetup(FMLCommonSetupEvent event) {
+        // Registries are frozen by now; build the replacement table before worldgen threads need it.
+        ReplacementTable.get();
+    }
+
+    private static void onAddReloadListeners(AddReloadListenerEvent event) {
+        event.addListener(new BlockReplacementRules());
+        event.addListener(new SharedLootTables());
+    }
+
+    private static void onServerStopping(ServerStoppingEvent event) {
+        ContextPrefetcher.onServerStopping();
+        StructureContexts.onServerStopping();
+        TemplatePreloader.onServerStopping();
+        TfcBlockReplacementProcessor.onServerStopping();
     }
 }
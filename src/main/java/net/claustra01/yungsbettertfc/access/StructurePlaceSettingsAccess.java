@@ -0,0 +1,15 @@
+package net.claustra01.yungsbettertfc.access;
+
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.world.processor.PlacementContext;
+
+/**
+ * Attached to {@link net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings} via mixin.
+ *
+ * <p>Carries our per-placement context from the {@code placeInWorld} hook to the processor.</p>
+ */
+public interface StructurePlaceSettingsAccess {
+    @Nullable PlacementContext yungsbettertfc$getPlacementContext();
+
+    void yungsbettertfc$setPlacementContext(@Nullable PlacementContext context);
+}
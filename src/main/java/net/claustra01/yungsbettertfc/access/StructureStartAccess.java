@@ -0,0 +1,15 @@
+package net.claustra01.yungsbettertfc.access;
+
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.world.processor.OriginContext;
+
+/**
+ * Attached to {@link net.minecraft.world.level.levelgen.structure.StructureStart} via mixin.
+ *
+ * <p>Holds the rock/soil context shared by the start's pieces, so it lives exactly as long as the start does.</p>
+ */
+public interface StructureStartAccess {
+    @Nullable OriginContext yungsbettertfc$getSharedContext();
+
+    void yungsbettertfc$setSharedContext(OriginContext context);
+}
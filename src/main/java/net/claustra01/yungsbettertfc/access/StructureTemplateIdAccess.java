@@ -1,6 +1,7 @@
 package net.claustra01.yungsbettertfc.access;
 
 import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.world.processor.PretranslatedPalette;
 import net.minecraft.resources.ResourceLocation;
 
 /**
@@ -13,5 +14,16 @@ public interface StructureTemplateIdAccess {
     @Nullable ResourceLocation yungsbettertfc$getTemplateId();
 
     void yungsbettertfc$setTemplateId(ResourceLocation id);
-}
 
+    /** The TFC metal tier displayed equipment in this template is upgraded to, derived from the template id. */
+    String yungsbettertfc$getEquipmentMetal();
+
+    /** Context-free block translations for this template, or null if it isn't one we process. */
+    @Nullable PretranslatedPalette yungsbettertfc$getPretranslatedPalette();
+
+    /** The template's dominant vanilla wood id (see {@link PretranslatedPalette#dominantWood()}), or -1. */
+    int yungsbettertfc$getDominantWood();
+
+    /** Resolves {@link #yungsbettertfc$getPretranslatedPalette()} if missing or built against an older table. */
+    void yungsbettertfc$ensurePretranslated();
+}
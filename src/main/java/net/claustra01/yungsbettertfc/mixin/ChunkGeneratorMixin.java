@@ -0,0 +1,29 @@
+package net.claustra01.yungsbettertfc.mixin;
+
+import com.llamalad7.mixinextras.sugar.Local;
+import java.util.function.Predicate;
+import net.claustra01.yungsbettertfc.world.biome.BiomeTagBits;
+import net.minecraft.core.Holder;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.chunk.ChunkGenerator;
+import net.minecraft.world.level.levelgen.structure.Structure;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.ModifyArg;
+
+@Mixin(ChunkGenerator.class)
+public abstract class ChunkGeneratorMixin {
+    // NeoForge runtime uses official names; we don't generate a refmap, so disable remapping.
+    // Vanilla passes structure.biomes()::contains here; swap in the bitset when that set is a tracked tag.
+    @ModifyArg(
+            method = "tryGenerateStructure",
+            at = @At(
+                    value = "INVOKE",
+                    target = "Lnet/minecraft/world/level/levelgen/structure/Structure;generate",
+                    remap = false),
+            remap = false)
+    private Predicate<Holder<Biome>> yungsbettertfc$useBiomeTagBits(
+            Predicate<Holder<Biome>> validBiome, @Local Structure structure) {
+        return BiomeTagBits.predicateFor(structure.biomes(), validBiome);
+    }
+}
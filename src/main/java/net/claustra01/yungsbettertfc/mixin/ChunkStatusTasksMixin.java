@@ -0,0 +1,28 @@
+package net.claustra01.yungsbettertfc.mixin;
+
+import java.util.concurrent.CompletableFuture;
+import net.claustra01.yungsbettertfc.world.processor.ContextPrefetcher;
+import net.minecraft.server.level.GenerationChunkHolder;
+import net.minecraft.util.StaticCache2D;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.status.ChunkStatusTasks;
+import net.minecraft.world.level.chunk.status.ChunkStep;
+import net.minecraft.world.level.chunk.status.WorldGenContext;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(ChunkStatusTasks.class)
+public abstract class ChunkStatusTasksMixin {
+    // NeoForge runtime uses official names; we don't generate a refmap, so disable remapping.
+    @Inject(method = "generateCarvers", at = @At("RETURN"), remap = false)
+    private static void yungsbettertfc$prefetchContext(
+            WorldGenContext context,
+            ChunkStep step,
+            StaticCache2D<GenerationChunkHolder> cache,
+            ChunkAccess chunk,
+            CallbackInfoReturnable<CompletableFuture<ChunkAccess>> cir) {
+        ContextPrefetcher.onCarved(context.level(), chunk);
+    }
+}
@@ -0,0 +1,18 @@
+package net.claustra01.yungsbettertfc.mixin;
+
+import net.claustra01.yungsbettertfc.world.processor.StructureContexts;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerLevel.class)
+public abstract class ServerLevelMixin {
+    // NeoForge runtime uses official names; we don't generate a refmap, so disable remapping.
+    @Inject(method = "onStructureStartsAvailable", at = @At("TAIL"), remap = false)
+    private void yungsbettertfc$shareStructureContext(ChunkAccess chunk, CallbackInfo ci) {
+        StructureContexts.onStructureStarts((ServerLevel) (Object) this, chunk);
+    }
+}
@@ -0,0 +1,24 @@
+package net.claustra01.yungsbettertfc.mixin;
+
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.access.StructurePlaceSettingsAccess;
+import net.claustra01.yungsbettertfc.world.processor.PlacementContext;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(StructurePlaceSettings.class)
+public abstract class StructurePlaceSettingsMixin implements StructurePlaceSettingsAccess {
+    @Unique @Nullable private PlacementContext yungsbettertfc$placementContext;
+
+    @Override
+    @Nullable
+    public PlacementContext yungsbettertfc$getPlacementContext() {
+        return yungsbettertfc$placementContext;
+    }
+
+    @Override
+    public void yungsbettertfc$setPlacementContext(@Nullable PlacementContext context) {
+        this.yungsbettertfc$placementContext = context;
+    }
+}
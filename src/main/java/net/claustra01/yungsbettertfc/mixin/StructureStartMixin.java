@@ -0,0 +1,24 @@
+package net.claustra01.yungsbettertfc.mixin;
+
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.access.StructureStartAccess;
+import net.claustra01.yungsbettertfc.world.processor.OriginContext;
+import net.minecraft.world.level.levelgen.structure.StructureStart;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(StructureStart.class)
+public abstract class StructureStartMixin implements StructureStartAccess {
+    @Unique @Nullable private volatile OriginContext yungsbettertfc$sharedContext;
+
+    @Override
+    @Nullable
+    public OriginContext yungsbettertfc$getSharedContext() {
+        return yungsbettertfc$sharedContext;
+    }
+
+    @Override
+    public void yungsbettertfc$setSharedContext(OriginContext context) {
+        this.yungsbettertfc$sharedContext = context;
+    }
+}
@@ -17,6 +17,8 @@ public abstract class StructureTemplateManagerMixin {
         StructureTemplate template = cir.getReturnValue();
         if (template instanceof StructureTemplateIdAccess access) {
             access.yungsbettertfc$setTemplateId(id);
+            // Templates are cached by the manager, so this resolves once per template id.
+            access.yungsbettertfc$ensurePretranslated();
         }
     }
 }
@@ -1,16 +1,22 @@
 package net.claustra01.yungsbettertfc.mixin;
 
-import java.util.Set;
+import java.util.List;
 import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.access.StructurePlaceSettingsAccess;
 import net.claustra01.yungsbettertfc.access.StructureTemplateIdAccess;
+import net.claustra01.yungsbettertfc.world.processor.PlacementContext;
+import net.claustra01.yungsbettertfc.world.processor.PretranslatedPalette;
 import net.claustra01.yungsbettertfc.world.processor.TfcBlockReplacementProcessor;
 import net.minecraft.core.BlockPos;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.RandomSource;
 import net.minecraft.world.level.ServerLevelAccessor;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessor;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -18,16 +24,12 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(StructureTemplate.class)
 public abstract class StructureTemplateMixin implements StructureTemplateIdAccess {
-    @Unique
-    private static final Set<String> YBTF_STRUCTURE_NAMESPACES =
-            Set.of(
-                    "betterstrongholds",
-                    "betterdungeons",
-                    "betteroceanmonuments",
-                    "betterfortresses",
-                    "beneath");
+    @Shadow(remap = false) @Final private List<StructureTemplate.Palette> palettes;
+    @Shadow(remap = false) @Final private List<StructureTemplate.StructureEntityInfo> entityInfoList;
 
     @Unique @Nullable private ResourceLocation yungsbettertfc$templateId;
+    @Unique @Nullable private volatile PretranslatedPalette yungsbettertfc$pretranslatedPalette;
+    @Unique private String yungsbettertfc$equipmentMetal = TfcBlockReplacementProcessor.equipmentMetalForTemplate(null);
 
     @Override
     @Nullable
@@ -38,6 +40,37 @@ public abstract class StructureTemplateMixin implements StructureTemplateIdAcces
     @Override
     public void yungsbettertfc$setTemplateId(ResourceLocation id) {
         this.yungsbettertfc$templateId = id;
+        this.yungsbettertfc$equipmentMetal = TfcBlockReplacementProcessor.equipmentMetalForTemplate(id);
+    }
+
+    @Override
+    public String yungsbettertfc$getEquipmentMetal() {
+        return yungsbettertfc$equipmentMetal;
+    }
+
+    @Override
+    @Nullable
+    public PretranslatedPalette yungsbettertfc$getPretranslatedPalette() {
+        return yungsbettertfc$pretranslatedPalette;
+    }
+
+    @Override
+    public int yungsbettertfc$getDominantWood() {
+        PretranslatedPalette palette = this.yungsbettertfc$pretranslatedPalette;
+        return palette != null ? palette.dominantWood() : -1;
+    }
+
+    @Override
+    public void yungsbettertfc$ensurePretranslated() {
+        ResourceLocation id = this.yungsbettertfc$templateId;
+        if (id == null || !TfcBlockReplacementProcessor.STRUCTURE_NAMESPACES.contains(id.getNamespace())) {
+            return;
+        }
+        PretranslatedPalette palette = this.yungsbettertfc$pretranslatedPalette;
+        if (palette == null || !palette.isCurrent()) {
+            this.yungsbettertfc$pretranslatedPalette =
+                    PretranslatedPalette.build(this.palettes, this.entityInfoList, this.yungsbettertfc$equipmentMetal);
+        }
     }
 
     // NeoForge runtime uses official names; we don't generate a refmap, so disable remapping.
@@ -51,13 +84,45 @@ public abstract class StructureTemplateMixin implements StructureTemplateIdAcces
             int flags,
             CallbackInfoReturnable<Boolean> cir) {
         ResourceLocation id = this.yungsbettertfc$templateId;
-        if (id == null || !YBTF_STRUCTURE_NAMESPACES.contains(id.getNamespace())) {
+        if (id == null || !TfcBlockReplacementProcessor.STRUCTURE_NAMESPACES.contains(id.getNamespace())) {
+            return;
+        }
+
+        // Rebuilds only if the replacement table changed since the template was analyzed.
+        yungsbettertfc$ensurePretranslated();
+        PretranslatedPalette palette = this.yungsbettertfc$pretranslatedPalette;
+        int translationFlags = palette != null ? palette.flags() : 0;
+        if (translationFlags == 0) {
+            // Nothing in this template would change; skip the processor and its context entirely.
             return;
         }
 
         // Ensure we run after the structure's own processors (we append to the end).
-        if (!settings.getProcessors().contains(TfcBlockReplacementProcessor.INSTANCE)) {
+        List<StructureProcessor> processors = settings.getProcessors();
+        boolean alreadyLast = !processors.isEmpty()
+                && processors.get(processors.size() - 1) == TfcBlockReplacementProcessor.INSTANCE;
+        if (!alreadyLast && !processors.contains(TfcBlockReplacementProcessor.INSTANCE)) {
             settings.addProcessor(TfcBlockReplacementProcessor.INSTANCE);
         }
+        if (settings instanceof StructurePlaceSettingsAccess access) {
+            access.yungsbettertfc$setPlacementContext(
+                    PlacementContext.create(
+                            serverLevel.getLevel(), offset, (StructureTemplate) (Object) this, translationFlags));
+        }
+    }
+
+    @Inject(method = "placeInWorld", at = @At("RETURN"), remap = false)
+    private void yungsbettertfc$clearPlacementContext(
+            ServerLevelAccessor serverLevel,
+            BlockPos offset,
+            BlockPos pos,
+            StructurePlaceSettings settings,
+            RandomSource random,
+            int flags,
+            CallbackInfoReturnable<Boolean> cir) {
+        // Settings objects are sometimes reused for other templates; don't leak this placement's context into them.
+        if (settings instanceof StructurePlaceSettingsAccess access) {
+            access.yungsbettertfc$setPlacementContext(null);
+        }
     }
 }
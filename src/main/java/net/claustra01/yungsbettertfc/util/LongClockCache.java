@@ -0,0 +1,201 @@
+package net.claustra01.yungsbettertfc.util;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded, lock-striped {@code long -> V} cache with CLOCK (second chance) eviction.
+ *
+ * <p>Keys are spread over independently locked segments, so worldgen threads only contend when they hit the same
+ * segment. Loaders run outside the segment lock; if two threads race on the same key, the first value stored wins.</p>
+ */
+public final class LongClockCache<V> {
+    private final Segment<V>[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public LongClockCache(int maxSize, int concurrency) {
+        int segmentCount = 1;
+        while (segmentCount < concurrency) {
+            segmentCount <<= 1;
+        }
+        int segmentCapacity = Math.max(1, (maxSize + segmentCount - 1) / segmentCount);
+
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    public @Nullable V get(long key) {
+        @Nullable V value = segmentFor(key).get(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    public V computeIfAbsent(long key, LongFunction<V> loader) {
+        @Nullable V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        return segmentFor(key).putIfAbsent(key, loader.apply(key), evictions);
+    }
+
+    /** Stores {@code value} for {@code key}, replacing any value already there. */
+    public void put(long key, V value) {
+        segmentFor(key).put(key, value, evictions);
+    }
+
+    /** Visits every entry; each segment is locked while its entries are visited. */
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (Segment<V> segment : segments) {
+            segment.forEach(consumer);
+        }
+    }
+
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int capacity() {
+        return segments.length * segments[0].keys.length;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private Segment<V> segmentFor(long key) {
+        return segments[(int) (HashCommon.mix(key) & segmentMask)];
+    }
+
+    private static final class Segment<V> {
+        private final Long2IntOpenHashMap index;
+        private final long[] keys;
+        private final Object[] values;
+        private final boolean[] referenced;
+        private int size;
+        private int hand;
+
+        private Segment(int capacity) {
+            this.index = new Long2IntOpenHashMap(capacity);
+            this.index.defaultReturnValue(-1);
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.referenced = new boolean[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized @Nullable V get(long key) {
+            int slot = index.get(key);
+            if (slot < 0) {
+                return null;
+            }
+            referenced[slot] = true;
+            return (V) values[slot];
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V putIfAbsent(long key, V value, LongAdder evictions) {
+            int slot = index.get(key);
+            if (slot >= 0) {
+                referenced[slot] = true;
+                return (V) values[slot];
+            }
+            insert(key, value, evictions);
+            return value;
+        }
+
+        synchronized void put(long key, V value, LongAdder evictions) {
+            int slot = index.get(key);
+            if (slot >= 0) {
+                values[slot] = value;
+                referenced[slot] = true;
+                return;
+            }
+            insert(key, value, evictions);
+        }
+
+        private void insert(long key, V value, LongAdder evictions) {
+            int slot;
+            if (size < keys.length) {
+                slot = size++;
+            } else {
+                slot = evict();
+                evictions.increment();
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            referenced[slot] = false;
+            index.put(key, slot);
+        }
+
+        /** Advances the clock hand past recently used slots (clearing their bit) and frees the first cold one. */
+        private int evict() {
+            while (referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand + 1) % keys.length;
+            }
+            int slot = hand;
+            hand = (hand + 1) % keys.length;
+            index.remove(keys[slot]);
+            values[slot] = null;
+            return slot;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void forEach(EntryConsumer<? super V> consumer) {
+            for (int slot = 0; slot < size; slot++) {
+                consumer.accept(keys[slot], (V) values[slot]);
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            index.clear();
+            Arrays.fill(values, null);
+            Arrays.fill(referenced, false);
+            size = 0;
+            hand = 0;
+        }
+    }
+}
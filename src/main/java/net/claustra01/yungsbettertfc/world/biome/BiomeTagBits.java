@@ -0,0 +1,132 @@
+package net.claustra01.yungsbettertfc.world.biome;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.YungsBetterTfc;
+import net.claustra01.yungsbettertfc.world.processor.TfcBlockReplacementProcessor;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderSet;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.level.biome.Biome;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
+import org.slf4j.Logger;
+
+/**
+ * Biome tag membership as bitsets over biome registry ids, for the tags structure placement tests at every candidate
+ * position: our TFC biome groups and the {@code has_structure/*} tags of the supported structure mods.
+ *
+ * <p>Rebuilt whenever server tags reload, together with one identity map from each biome holder to its registry id,
+ * so a test is one identity-hash probe and a bit read. Tags that aren't tracked (or a lookup before the first build)
+ * fall back to the regular holder tag check.</p>
+ */
+public final class BiomeTagBits {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    public static final TagKey<Biome> TFC_LAND_BIOMES = tag("tfc_land_biomes");
+    public static final TagKey<Biome> TFC_COASTAL_BIOMES = tag("tfc_coastal_biomes");
+    public static final TagKey<Biome> TFC_DEEP_OCEAN_BIOMES = tag("tfc_deep_ocean_biomes");
+
+    private static final String HAS_STRUCTURE = "has_structure/";
+
+    private static volatile Map<TagKey<Biome>, Bits> tracked = Map.of();
+
+    private BiomeTagBits() {}
+
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        if (event.getUpdateCause() != TagsUpdatedEvent.UpdateCause.SERVER_DATA_LOAD) {
+            return;
+        }
+        rebuild(event.getRegistryAccess().registryOrThrow(Registries.BIOME));
+    }
+
+    static void rebuild(Registry<Biome> registry) {
+        // Shared by every tag's bits; only read after this method publishes them.
+        Reference2IntOpenHashMap<Holder<Biome>> ids = new Reference2IntOpenHashMap<>(registry.size());
+        ids.defaultReturnValue(-1);
+        registry.holders().forEach(biome -> ids.put(biome, registry.getId(biome.value())));
+
+        Map<TagKey<Biome>, Bits> bits = new HashMap<>();
+        registry.getTags().forEach(pair -> {
+            if (isTracked(pair.getFirst())) {
+                bits.put(pair.getFirst(), Bits.of(registry, ids, pair.getSecond()));
+            }
+        });
+        tracked = Map.copyOf(bits);
+        LOGGER.debug("Indexed {} biome tags over {} biomes.", bits.size(), registry.size());
+    }
+
+    private static boolean isTracked(TagKey<Biome> tag) {
+        ResourceLocation id = tag.location();
+        if (YungsBetterTfc.MODID.equals(id.getNamespace())) {
+            return true;
+        }
+        return TfcBlockReplacementProcessor.STRUCTURE_NAMESPACES.contains(id.getNamespace())
+                && id.getPath().startsWith(HAS_STRUCTURE);
+    }
+
+    public static boolean contains(TagKey<Biome> tag, Holder<Biome> biome) {
+        @Nullable Bits bits = tracked.get(tag);
+        return bits != null ? bits.test(biome) : biome.is(tag);
+    }
+
+    /**
+     * Returns a bitset-backed predicate equivalent to {@code biomes::contains} if {@code biomes} is a tracked tag,
+     * otherwise {@code fallback}.
+     */
+    public static Predicate<Holder<Biome>> predicateFor(HolderSet<Biome> biomes, Predicate<Holder<Biome>> fallback) {
+        if (biomes instanceof HolderSet.Named<Biome> named) {
+            @Nullable Bits bits = tracked.get(named.key());
+            if (bits != null) {
+                return bits;
+            }
+        }
+        return fallback;
+    }
+
+    private static TagKey<Biome> tag(String path) {
+        return TagKey.create(Registries.BIOME, ResourceLocation.fromNamespaceAndPath(YungsBetterTfc.MODID, path));
+    }
+
+    static final class Bits implements Predicate<Holder<Biome>> {
+        private final Registry<Biome> registry;
+        private final Reference2IntOpenHashMap<Holder<Biome>> ids;
+        private final BitSet members;
+
+        private Bits(Registry<Biome> registry, Reference2IntOpenHashMap<Holder<Biome>> ids, BitSet members) {
+            this.registry = registry;
+            this.ids = ids;
+            this.members = members;
+        }
+
+        static Bits of(Registry<Biome> registry, Reference2IntOpenHashMap<Holder<Biome>> ids, HolderSet<Biome> biomes) {
+            BitSet members = new BitSet(registry.size());
+            for (Holder<Biome> biome : biomes) {
+                int id = registry.getId(biome.value());
+                if (id >= 0) {
+                    members.set(id);
+                }
+            }
+            return new Bits(registry, ids, members);
+        }
+
+        @Override
+        public boolean test(Holder<Biome> biome) {
+            int id = idOf(biome);
+            return id >= 0 && members.get(id);
+        }
+
+        private int idOf(Holder<Biome> biome) {
+            int id = ids.getInt(biome);
+            // Direct holders (ex: from a world preset) aren't in the map; look their value up instead.
+            return id >= 0 ? id : registry.getId(biome.value());
+        }
+    }
+}
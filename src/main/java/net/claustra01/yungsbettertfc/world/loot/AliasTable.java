@@ -0,0 +1,86 @@
+package net.claustra01.yungsbettertfc.world.loot;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import net.minecraft.util.RandomSource;
+
+/**
+ * Walker/Vose alias table: a weighted draw in O(1) with one random number and no allocation.
+ *
+ * <p>Immutable once built, so it can be shared by every thread rolling loot.</p>
+ */
+final class AliasTable<T> {
+    private final Object[] values;
+    private final double[] probability;
+    private final int[] alias;
+
+    private AliasTable(Object[] values, double[] probability, int[] alias) {
+        this.values = values;
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    /** Returns null if there is nothing to draw (no values, or no positive weight). */
+    static <T> @Nullable AliasTable<T> of(List<T> values, double[] weights) {
+        int n = values.size();
+        double total = 0.0;
+        for (int i = 0; i < n; i++) {
+            total += Math.max(weights[i], 0.0);
+        }
+        if (n == 0 || total <= 0.0) {
+            return null;
+        }
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = Math.max(weights[i], 0.0) * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // Whatever is left is 1.0 up to rounding.
+        while (largeSize > 0) {
+            int i = large[--largeSize];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        while (smallSize > 0) {
+            int i = small[--smallSize];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        return new AliasTable<>(values.toArray(), probability, alias);
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    T sample(RandomSource random) {
+        double u = random.nextDouble() * values.length;
+        int i = Math.min((int) u, values.length - 1);
+        return (T) values[u - i < probability[i] ? i : alias[i]];
+    }
+}
@@ -0,0 +1,220 @@
+package net.claustra01.yungsbettertfc.world.loot;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.server.packs.resources.SimpleJsonResourceReloadListener;
+import net.minecraft.tags.TagKey;
+import net.minecraft.util.GsonHelper;
+import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.storage.loot.LootTable;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
+import org.slf4j.Logger;
+
+/**
+ * Flattened copies of the {@code <namespace>:shared/*} loot tables, for {@link SharedTableEntry}.
+ *
+ * <p>The shared tables are a single one-roll pool of items, expanded item tags and {@link WeightedTagEntry weighted
+ * tags}. On reload their JSON is read alongside the real loot tables; once tags are bound, every tag is expanded into
+ * one {@link AliasTable}, so a draw is a constant-time lookup. Tables using anything else (conditions, functions,
+ * luck-dependent quality, several pools) are left out and {@link SharedTableEntry} falls back to rolling the real
+ * table.</p>
+ */
+public final class SharedLootTables extends SimpleJsonResourceReloadListener {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson GSON = new GsonBuilder().create();
+    private static final String DIRECTORY = "loot_table/shared";
+    private static final String WEIGHTED_TAG_TYPE = "yungsbettertfc:weighted_tag";
+
+    // Parsed on reload, compiled when tags are bound; both swapped as a whole.
+    private static volatile Map<ResourceKey<LootTable>, List<Source>> sources = Map.of();
+    private static volatile Map<ResourceKey<LootTable>, AliasTable<Item>> compiled = Map.of();
+
+    public SharedLootTables() {
+        super(GSON, DIRECTORY);
+    }
+
+    /** Returns the flattened table, or null if it isn't flattenable (or tags aren't bound yet). */
+    static @Nullable AliasTable<Item> get(ResourceKey<LootTable> table) {
+        return compiled.get(table);
+    }
+
+    @Override
+    protected void apply(
+            Map<ResourceLocation, JsonElement> files, ResourceManager resourceManager, ProfilerFiller profiler) {
+        Map<ResourceKey<LootTable>, List<Source>> parsed = new HashMap<>();
+        for (Map.Entry<ResourceLocation, JsonElement> file : files.entrySet()) {
+            ResourceLocation id = file.getKey();
+            ResourceKey<LootTable> key = ResourceKey.create(
+                    Registries.LOOT_TABLE,
+                    ResourceLocation.fromNamespaceAndPath(id.getNamespace(), "shared/" + id.getPath()));
+            @Nullable List<Source> table;
+            try {
+                table = parse(file.getValue());
+            } catch (JsonParseException e) {
+                // The loot table loader reports the actual error.
+                table = null;
+            }
+            if (table != null) {
+                parsed.put(key, table);
+            } else {
+                LOGGER.debug("Loot table {} can't be flattened; it will be rolled as a nested table.", key.location());
+            }
+        }
+        sources = Map.copyOf(parsed);
+        // Tag contents may have changed too; recompiled once the new tags are bound.
+        compiled = Map.of();
+    }
+
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        if (event.getUpdateCause() != TagsUpdatedEvent.UpdateCause.SERVER_DATA_LOAD) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<ResourceKey<LootTable>, AliasTable<Item>> tables = new HashMap<>();
+        for (Map.Entry<ResourceKey<LootTable>, List<Source>> entry : sources.entrySet()) {
+            @Nullable AliasTable<Item> table = compile(entry.getValue());
+            if (table != null) {
+                tables.put(entry.getKey(), table);
+            }
+        }
+        compiled = Map.copyOf(tables);
+        LOGGER.info(
+                "Flattened {} shared loot tables in {} ms.",
+                tables.size(),
+                (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    /** Reads the single-pool, one-roll subset of the loot table format; returns null for anything else. */
+    private static @Nullable List<Source> parse(JsonElement json) {
+        if (!json.isJsonObject()) {
+            return null;
+        }
+        JsonObject root = json.getAsJsonObject();
+        if (root.has("functions") || !root.has("pools")) {
+            return null;
+        }
+        JsonArray pools = GsonHelper.getAsJsonArray(root, "pools");
+        if (pools.size() != 1 || !pools.get(0).isJsonObject()) {
+            return null;
+        }
+        JsonObject pool = pools.get(0).getAsJsonObject();
+        if (pool.has("conditions") || pool.has("functions") || pool.has("bonus_rolls")) {
+            return null;
+        }
+        JsonElement rolls = pool.get("rolls");
+        if (rolls == null || !rolls.isJsonPrimitive() || rolls.getAsDouble() != 1.0) {
+            return null;
+        }
+
+        List<Source> entries = new ArrayList<>();
+        for (JsonElement element : GsonHelper.getAsJsonArray(pool, "entries")) {
+            if (!element.isJsonObject()) {
+                return null;
+            }
+            JsonObject entry = element.getAsJsonObject();
+            // Quality scales the weight with the looter's luck, which a fixed alias table can't do.
+            if (entry.has("conditions") || entry.has("functions") || GsonHelper.getAsInt(entry, "quality", 0) != 0) {
+                return null;
+            }
+            int weight = GsonHelper.getAsInt(entry, "weight", 1);
+            switch (GsonHelper.getAsString(entry, "type", "")) {
+                case "minecraft:item", "item" -> {
+                    @Nullable ResourceLocation name = ResourceLocation.tryParse(GsonHelper.getAsString(entry, "name"));
+                    if (name == null) {
+                        return null;
+                    }
+                    entries.add(new Source(name, Kind.ITEM, weight, Map.of()));
+                }
+                case "minecraft:tag", "tag" -> {
+                    @Nullable ResourceLocation name = ResourceLocation.tryParse(GsonHelper.getAsString(entry, "name"));
+                    // A non-expanded tag entry drops every item at once; not a single draw.
+                    if (name == null || !GsonHelper.getAsBoolean(entry, "expand", false)) {
+                        return null;
+                    }
+                    entries.add(new Source(name, Kind.TAG, weight, Map.of()));
+                }
+                case WEIGHTED_TAG_TYPE -> {
+                    @Nullable ResourceLocation name = ResourceLocation.tryParse(GsonHelper.getAsString(entry, "tag"));
+                    if (name == null) {
+                        return null;
+                    }
+                    Map<ResourceLocation, Integer> itemWeights = new HashMap<>();
+                    for (Map.Entry<String, JsonElement> itemWeight
+                            : GsonHelper.getAsJsonObject(entry, "weights", new JsonObject()).entrySet()) {
+                        @Nullable ResourceLocation item = ResourceLocation.tryParse(itemWeight.getKey());
+                        if (item == null) {
+                            return null;
+                        }
+                        itemWeights.put(item, GsonHelper.convertToInt(itemWeight.getValue(), itemWeight.getKey()));
+                    }
+                    entries.add(new Source(name, Kind.WEIGHTED_TAG, weight, Map.copyOf(itemWeights)));
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static @Nullable AliasTable<Item> compile(List<Source> entries) {
+        List<Item> items = new ArrayList<>();
+        DoubleArrayList weights = new DoubleArrayList();
+        for (Source source : entries) {
+            if (source.weight() <= 0) {
+                continue;
+            }
+            switch (source.kind()) {
+                case ITEM -> BuiltInRegistries.ITEM.getOptional(source.name()).ifPresent(item -> {
+                    items.add(item);
+                    weights.add(source.weight());
+                });
+                case TAG -> {
+                    // Expanded: every item in the tag is its own entry with the entry's weight.
+                    TagKey<Item> tag = TagKey.create(Registries.ITEM, source.name());
+                    BuiltInRegistries.ITEM.getTag(tag).ifPresent(holders -> {
+                        for (Holder<Item> item : holders) {
+                            items.add(item.value());
+                            weights.add(source.weight());
+                        }
+                    });
+                }
+                case WEIGHTED_TAG -> WeightedTagEntry.expand(
+                        TagKey.create(Registries.ITEM, source.name()),
+                        source.itemWeights(),
+                        source.weight(),
+                        items,
+                        weights);
+            }
+        }
+        return AliasTable.of(items, weights.toDoubleArray());
+    }
+
+    private enum Kind {
+        ITEM,
+        TAG,
+        WEIGHTED_TAG
+    }
+
+    /** One entry of a shared table; {@code name} is the item or tag id. */
+    private record Source(ResourceLocation name, Kind kind, int weight, Map<ResourceLocation, Integer> itemWeights) {}
+}
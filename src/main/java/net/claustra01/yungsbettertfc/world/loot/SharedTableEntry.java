@@ -0,0 +1,100 @@
+package net.claustra01.yungsbettertfc.world.loot;
+
+import com.mojang.logging.LogUtils;
+import com.mojang.serialization.MapCodec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.ModLootEntries;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.storage.loot.LootContext;
+import net.minecraft.world.level.storage.loot.LootTable;
+import net.minecraft.world.level.storage.loot.ValidationContext;
+import net.minecraft.world.level.storage.loot.entries.LootPoolEntryType;
+import net.minecraft.world.level.storage.loot.entries.LootPoolSingletonContainer;
+import net.minecraft.world.level.storage.loot.functions.LootItemFunction;
+import net.minecraft.world.level.storage.loot.predicates.LootItemCondition;
+import org.slf4j.Logger;
+
+/**
+ * Like {@code minecraft:loot_table}, but draws one item from the {@linkplain SharedLootTables flattened} copy of the
+ * table instead of rolling it. The entry's own functions (ex: {@code set_count}) apply to the drawn item.
+ *
+ * <p>Falls back to rolling the real table if it couldn't be flattened.</p>
+ */
+public final class SharedTableEntry extends LootPoolSingletonContainer {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    public static final MapCodec<SharedTableEntry> CODEC = RecordCodecBuilder.mapCodec(instance -> instance.group(
+                    ResourceKey.codec(Registries.LOOT_TABLE).fieldOf("value").forGetter(entry -> entry.table))
+            .and(singletonFields(instance))
+            .apply(instance, SharedTableEntry::new));
+
+    private final ResourceKey<LootTable> table;
+
+    private SharedTableEntry(
+            ResourceKey<LootTable> table,
+            int weight,
+            int quality,
+            List<LootItemCondition> conditions,
+            List<LootItemFunction> functions) {
+        super(weight, quality, conditions, functions);
+        this.table = table;
+    }
+
+    @Override
+    public LootPoolEntryType getType() {
+        return ModLootEntries.SHARED_TABLE.get();
+    }
+
+    @Override
+    protected void createItemStack(Consumer<ItemStack> output, LootContext context) {
+        LootTable lootTable = context.getResolver()
+                .get(Registries.LOOT_TABLE, table)
+                .map(Holder::value)
+                .orElse(LootTable.EMPTY);
+        @Nullable AliasTable<Item> flat = SharedLootTables.get(table);
+        if (flat == null) {
+            // Rolling the table pushes it as visited itself, like minecraft:loot_table does.
+            lootTable.getRandomItemsRaw(context, output);
+            return;
+        }
+
+        // Drawing from the flattened copy still counts as visiting the table, so loops through it are caught.
+        LootContext.VisitedEntry<LootTable> visited = LootContext.createVisitedEntry(lootTable);
+        if (!context.pushVisitedElement(visited)) {
+            LOGGER.warn("Detected infinite loop in loot tables at {}", table.location());
+            return;
+        }
+        try {
+            output.accept(new ItemStack(flat.sample(context.getRandom())));
+        } finally {
+            context.popVisitedElement(visited);
+        }
+    }
+
+    /** Mirrors {@code NestedLootTable}: reports missing and recursive tables, then validates the referenced one. */
+    @Override
+    public void validate(ValidationContext context) {
+        if (!context.allowsReferences()) {
+            context.reportProblem("Uses reference to " + table.location() + ", but references are not allowed");
+            return;
+        }
+        if (context.hasVisitedElement(table)) {
+            context.reportProblem("Table " + table.location() + " is recursively called");
+            return;
+        }
+        super.validate(context);
+        context.resolver()
+                .get(Registries.LOOT_TABLE, table)
+                .ifPresentOrElse(
+                        reference -> reference.value()
+                                .validate(context.enterElement("->{" + table.location() + "}", table)),
+                        () -> context.reportProblem("Unknown loot table called " + table.location()));
+    }
+}
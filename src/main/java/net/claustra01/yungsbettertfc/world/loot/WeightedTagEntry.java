@@ -0,0 +1,127 @@
+package net.claustra01.yungsbettertfc.world.loot;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.MapCodec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.ModLootEntries;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderSet;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+import net.minecraft.util.ExtraCodecs;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.storage.loot.LootContext;
+import net.minecraft.world.level.storage.loot.entries.LootPoolEntryType;
+import net.minecraft.world.level.storage.loot.entries.LootPoolSingletonContainer;
+import net.minecraft.world.level.storage.loot.functions.LootItemFunction;
+import net.minecraft.world.level.storage.loot.predicates.LootItemCondition;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
+
+/**
+ * Draws one item from an item tag, weighted per item ({@code weights}, default 1 for items not listed).
+ *
+ * <p>Unlike an expanded {@code minecraft:tag} entry, this is one entry in its pool however many items the tag holds,
+ * and the draw is an {@link AliasTable} lookup. The table is built on the first draw after each tag reload, so items
+ * other mods add to the tag are picked up.</p>
+ */
+public final class WeightedTagEntry extends LootPoolSingletonContainer {
+    public static final MapCodec<WeightedTagEntry> CODEC = RecordCodecBuilder.mapCodec(instance -> instance.group(
+                    TagKey.codec(Registries.ITEM).fieldOf("tag").forGetter(entry -> entry.tag),
+                    Codec.unboundedMap(ResourceLocation.CODEC, ExtraCodecs.POSITIVE_INT)
+                            .optionalFieldOf("weights", Map.of())
+                            .forGetter(entry -> entry.weights))
+            .and(singletonFields(instance))
+            .apply(instance, WeightedTagEntry::new));
+
+    // Bumped whenever server tags reload; tables built against an older generation are rebuilt on their next draw.
+    private static volatile int tagGeneration;
+
+    private final TagKey<Item> tag;
+    private final Map<ResourceLocation, Integer> weights;
+    private volatile @Nullable Built built;
+
+    private WeightedTagEntry(
+            TagKey<Item> tag,
+            Map<ResourceLocation, Integer> weights,
+            int weight,
+            int quality,
+            List<LootItemCondition> conditions,
+            List<LootItemFunction> functions) {
+        super(weight, quality, conditions, functions);
+        this.tag = tag;
+        this.weights = Map.copyOf(weights);
+    }
+
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        if (event.getUpdateCause() == TagsUpdatedEvent.UpdateCause.SERVER_DATA_LOAD) {
+            tagGeneration++;
+        }
+    }
+
+    static @Nullable AliasTable<Item> build(TagKey<Item> tag, Map<ResourceLocation, Integer> weights) {
+        List<Item> items = new ArrayList<>();
+        DoubleArrayList itemWeights = new DoubleArrayList();
+        expand(tag, weights, 1.0, items, itemWeights);
+        return AliasTable.of(items, itemWeights.toDoubleArray());
+    }
+
+    /**
+     * Appends the tag's items with weights normalized to sum to {@code scale}, so entries of different sizes can be
+     * merged into one table.
+     */
+    static void expand(
+            TagKey<Item> tag,
+            Map<ResourceLocation, Integer> weights,
+            double scale,
+            List<Item> items,
+            DoubleArrayList itemWeights) {
+        @Nullable HolderSet.Named<Item> holders = BuiltInRegistries.ITEM.getTag(tag).orElse(null);
+        if (holders == null || holders.size() == 0) {
+            return;
+        }
+        double total = 0.0;
+        for (Holder<Item> holder : holders) {
+            total += weightOf(holder, weights);
+        }
+        for (Holder<Item> holder : holders) {
+            items.add(holder.value());
+            itemWeights.add(scale * weightOf(holder, weights) / total);
+        }
+    }
+
+    private static int weightOf(Holder<Item> holder, Map<ResourceLocation, Integer> weights) {
+        return holder.unwrapKey().map(key -> weights.getOrDefault(key.location(), 1)).orElse(1);
+    }
+
+    @Override
+    public LootPoolEntryType getType() {
+        return ModLootEntries.WEIGHTED_TAG.get();
+    }
+
+    @Override
+    protected void createItemStack(Consumer<ItemStack> output, LootContext context) {
+        // Racing threads may both build; they build the same table, so either result is fine.
+        int generation = tagGeneration;
+        @Nullable Built built = this.built;
+        if (built == null || built.generation() != generation) {
+            built = new Built(generation, build(tag, weights));
+            this.built = built;
+        }
+        @Nullable AliasTable<Item> table = built.table();
+        if (table != null) {
+            output.accept(new ItemStack(table.sample(context.getRandom())));
+        }
+    }
+
+    /** @param table null if the tag was empty when built */
+    private record Built(int generation, @Nullable AliasTable<Item> table) {}
+}
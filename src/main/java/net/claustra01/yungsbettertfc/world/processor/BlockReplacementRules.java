@@ -0,0 +1,101 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.mojang.logging.LogUtils;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.JsonOps;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.server.packs.resources.SimpleJsonResourceReloadListener;
+import net.minecraft.util.StringRepresentable;
+import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraft.world.level.block.Block;
+import org.slf4j.Logger;
+
+/**
+ * Loads {@code data/<namespace>/block_replacements/*.json} and layers the rules over the built-in mappings.
+ *
+ * <p>Each file holds a {@code replacements} list of {@code {"source": ..., "target": ..., "scopes": [...]}} objects.
+ * The target may use one of {@code {rock}}, {@code {soil}} or {@code {wood}}, resolved from the placement like the
+ * built-in mappings; omitting it keeps the source block unreplaced. Scopes are {@code full} (the default),
+ * {@code utility} and {@code utility_beneath}. Files are applied in id order, so later files win.</p>
+ *
+ * <p>The rules are compiled into a new {@link ReplacementTable} off to the side and published in one write, so
+ * structures placed during a reload see either the old or the new table, never a mix.</p>
+ */
+public final class BlockReplacementRules extends SimpleJsonResourceReloadListener {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final Gson GSON = new GsonBuilder().create();
+    public static final String DIRECTORY = "block_replacements";
+
+    private static final Codec<RuleJson> RULE_CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                    ResourceLocation.CODEC.fieldOf("source").forGetter(RuleJson::source),
+                    Codec.STRING.optionalFieldOf("target").forGetter(RuleJson::target),
+                    Scope.CODEC.listOf().optionalFieldOf("scopes", List.of(Scope.FULL)).forGetter(RuleJson::scopes))
+            .apply(instance, RuleJson::new));
+    private static final Codec<List<RuleJson>> FILE_CODEC =
+            RULE_CODEC.listOf().fieldOf("replacements").codec();
+
+    public BlockReplacementRules() {
+        super(GSON, DIRECTORY);
+    }
+
+    @Override
+    protected void apply(
+            Map<ResourceLocation, JsonElement> files, ResourceManager resourceManager, ProfilerFiller profiler) {
+        List<ReplacementTable.DataRule> rules = new ArrayList<>();
+        files.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(file -> {
+            Optional<List<RuleJson>> parsed = FILE_CODEC.parse(JsonOps.INSTANCE, file.getValue())
+                    .resultOrPartial(error ->
+                            LOGGER.warn("Invalid block replacement file {}: {}", file.getKey(), error));
+            parsed.ifPresent(list -> {
+                for (RuleJson rule : list) {
+                    Optional<Block> source = BuiltInRegistries.BLOCK.getOptional(rule.source());
+                    if (source.isEmpty()) {
+                        LOGGER.debug(
+                                "Skipping block replacement for unknown block {} in {}", rule.source(), file.getKey());
+                        continue;
+                    }
+                    int[] variants = rule.scopes().stream().mapToInt(Scope::variant).distinct().toArray();
+                    rules.add(new ReplacementTable.DataRule(source.get(), rule.target().orElse(null), variants));
+                }
+            });
+        });
+        ReplacementTable.install(rules);
+    }
+
+    private record RuleJson(ResourceLocation source, Optional<String> target, List<Scope> scopes) {}
+
+    private enum Scope implements StringRepresentable {
+        FULL("full", 0),
+        UTILITY("utility", 1),
+        UTILITY_BENEATH("utility_beneath", 2);
+
+        static final Codec<Scope> CODEC = StringRepresentable.fromEnum(Scope::values);
+
+        private final String name;
+        private final int variant;
+
+        Scope(String name, int variant) {
+            this.name = name;
+            this.variant = variant;
+        }
+
+        int variant() {
+            return variant;
+        }
+
+        @Override
+        public String getSerializedName() {
+            return name;
+        }
+    }
+}
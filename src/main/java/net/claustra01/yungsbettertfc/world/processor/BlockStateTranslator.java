@@ -0,0 +1,121 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.StateDefinition;
+import net.minecraft.world.level.block.state.properties.Property;
+
+/**
+ * Copies block state properties by name from a source state onto a target block, memoized per (source state, target
+ * block).
+ *
+ * <p>Results live in a dense array indexed by {@link Block#BLOCK_STATE_REGISTRY} id. Each slot holds a short chain of
+ * (target, result) pairs, since a rock/soil/wood dependent source maps to a handful of targets. Lookups never lock or
+ * allocate; misses compute through a {@link PropertyMapping} that is itself cached per (source block, target block).</p>
+ */
+final class BlockStateTranslator {
+    private final AtomicReferenceArray<Node> byStateId;
+    private final ConcurrentHashMap<BlockPair, PropertyMapping> mappings = new ConcurrentHashMap<>();
+
+    private BlockStateTranslator() {
+        this.byStateId = new AtomicReferenceArray<>(Block.BLOCK_STATE_REGISTRY.size());
+    }
+
+    static BlockStateTranslator get() {
+        return Holder.INSTANCE;
+    }
+
+    BlockState translate(BlockState from, Block to) {
+        int id = Block.BLOCK_STATE_REGISTRY.getId(from);
+        if (id < 0 || id >= byStateId.length()) {
+            return mapping(from.getBlock(), to).apply(from, to.defaultBlockState());
+        }
+
+        for (Node node = byStateId.get(id); node != null; node = node.next) {
+            if (node.target == to) {
+                return node.result;
+            }
+        }
+
+        BlockState result = mapping(from.getBlock(), to).apply(from, to.defaultBlockState());
+        // Racing threads may both insert the same pair; the results are identical, so that's harmless.
+        Node head;
+        do {
+            head = byStateId.get(id);
+        } while (!byStateId.compareAndSet(id, head, new Node(to, result, head)));
+        return result;
+    }
+
+    private PropertyMapping mapping(Block from, Block to) {
+        return mappings.computeIfAbsent(new BlockPair(from, to), PropertyMapping::create);
+    }
+
+    private record BlockPair(Block from, Block to) {}
+
+    private record Node(Block target, BlockState result, @Nullable Node next) {}
+
+    /** Source/target properties that share a name, resolved once per block pair. */
+    private static final class PropertyMapping {
+        private final Property<?>[] fromProps;
+        private final Property<?>[] toProps;
+        // True when every value of the source property is also valid on the target, so the per-value check can be
+        // skipped.
+        private final boolean[] allValuesValid;
+
+        private PropertyMapping(Property<?>[] fromProps, Property<?>[] toProps, boolean[] allValuesValid) {
+            this.fromProps = fromProps;
+            this.toProps = toProps;
+            this.allValuesValid = allValuesValid;
+        }
+
+        private static PropertyMapping create(BlockPair pair) {
+            StateDefinition<Block, BlockState> def = pair.to().getStateDefinition();
+            List<Property<?>> from = new ArrayList<>();
+            List<Property<?>> to = new ArrayList<>();
+            List<Boolean> valid = new ArrayList<>();
+            for (Property<?> fromProp : pair.from().getStateDefinition().getProperties()) {
+                Property<?> toProp = def.getProperty(fromProp.getName());
+                if (toProp == null) {
+                    continue;
+                }
+                from.add(fromProp);
+                to.add(toProp);
+                valid.add(toProp.getPossibleValues().containsAll(fromProp.getPossibleValues()));
+            }
+
+            boolean[] allValuesValid = new boolean[valid.size()];
+            for (int i = 0; i < allValuesValid.length; i++) {
+                allValuesValid[i] = valid.get(i);
+            }
+            return new PropertyMapping(from.toArray(Property<?>[]::new), to.toArray(Property<?>[]::new), allValuesValid);
+        }
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private BlockState apply(BlockState from, BlockState to) {
+            for (int i = 0; i < fromProps.length; i++) {
+                Comparable value = from.getValue((Property) fromProps[i]);
+                Property toProp = toProps[i];
+                if (!allValuesValid[i] && !toProp.getPossibleValues().contains(value)) {
+                    continue;
+                }
+
+                try {
+                    to = to.setValue(toProp, value);
+                } catch (Exception ignored) {
+                    // Defensive: if a property value can't be applied, just skip it.
+                }
+            }
+            return to;
+        }
+    }
+
+    // Lazy holder: the state registry is only complete once registries freeze.
+    private static final class Holder {
+        private static final BlockStateTranslator INSTANCE = new BlockStateTranslator();
+    }
+}
@@ -0,0 +1,236 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import javax.annotation.Nullable;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+
+/**
+ * Resolves the rock and soil under a placement origin.
+ *
+ * <p>Rock comes from TFC's chunk data when it is available. Whatever is still missing is found in a single downward
+ * pass over the column that reads chunk sections directly, skips sections that are entirely air, and classifies each
+ * block with the table's precomputed ground lookup, so the scan never touches registry ids or strings.</p>
+ *
+ * <p>The {@link RockProfile} for deeper structures comes the same way: TFC's rock at every band of the column if chunk
+ * data is available, otherwise one upward pass. Either only covers the heights the placement builds at, plus a band on
+ * each side, so a shallow structure reads a few dozen blocks rather than the whole build height. Scanned columns are
+ * saved in {@link ColumnSummaries}, which is checked before scanning.</p>
+ */
+final class ColumnContextResolver {
+    private static final int MAX_DEPTH = 64;
+
+    private ColumnContextResolver() {}
+
+    /** Whether the ground of the column at {@code pos} is generated and final (carved), without loading anything. */
+    static boolean isGroundFinal(LevelReader level, BlockPos pos) {
+        @Nullable ChunkAccess chunk = level.getChunk(
+                SectionPos.blockToSectionCoord(pos.getX()),
+                SectionPos.blockToSectionCoord(pos.getZ()),
+                ChunkStatus.EMPTY,
+                false);
+        return chunk != null && chunk.getPersistedStatus().isOrAfter(ChunkStatus.CARVERS);
+    }
+
+    /** Returns {@code rock} in the high and {@code soil} in the low 32 bits; either id is -1 if not found. */
+    static long resolve(LevelReader level, BlockPos origin, ReplacementTable table) {
+        // Don't force-load or generate anything; a missing chunk just means "not found".
+        @Nullable ChunkAccess chunk = level.getChunk(
+                SectionPos.blockToSectionCoord(origin.getX()),
+                SectionPos.blockToSectionCoord(origin.getZ()),
+                ChunkStatus.EMPTY,
+                false);
+        return scan(TfcChunkRocks.rawRockAt(level, origin), chunk, level.getMinBuildHeight(), origin, table);
+    }
+
+    /** Like {@link #resolve(LevelReader, BlockPos, ReplacementTable)}, for a chunk read off the worldgen threads. */
+    static long resolve(ChunkAccess chunk, BlockPos origin, ReplacementTable table) {
+        return scan(TfcChunkRocks.rawRockAt(chunk, origin), chunk, chunk.getMinBuildHeight(), origin, table);
+    }
+
+    /**
+     * Returns the rock profile of the column at {@code origin} over {@code span} (see {@link OriginContext#span()}),
+     * or null if it has no rock there.
+     */
+    static @Nullable RockProfile profile(LevelReader level, BlockPos origin, long span, ReplacementTable table) {
+        int minY = profileMinY(level, span);
+        int maxY = profileMaxY(level, span);
+        if (minY > maxY) {
+            return null;
+        }
+        @Nullable Block[] tfcRocks = new Block[RockProfile.bands(minY, maxY)];
+        if (TfcChunkRocks.rawRockBands(level, origin, minY, tfcRocks)) {
+            return profileOf(tfcRocks, minY, table);
+        }
+        @Nullable ChunkAccess chunk = level.getChunk(
+                SectionPos.blockToSectionCoord(origin.getX()),
+                SectionPos.blockToSectionCoord(origin.getZ()),
+                ChunkStatus.EMPTY,
+                false);
+        return chunk != null ? scanProfile(chunk, origin, minY, maxY, table) : null;
+    }
+
+    /** Like {@link #profile(LevelReader, BlockPos, long, ReplacementTable)}, for a chunk read off worldgen threads. */
+    static @Nullable RockProfile profile(ChunkAccess chunk, BlockPos origin, long span, ReplacementTable table) {
+        int minY = profileMinY(chunk, span);
+        int maxY = profileMaxY(chunk, span);
+        if (minY > maxY) {
+            return null;
+        }
+        @Nullable Block[] tfcRocks = new Block[RockProfile.bands(minY, maxY)];
+        if (TfcChunkRocks.rawRockBands(chunk, origin, minY, tfcRocks)) {
+            return profileOf(tfcRocks, minY, table);
+        }
+        return scanProfile(chunk, origin, minY, maxY, table);
+    }
+
+    // One band of margin below and above, so the profile has a rock at the edges to carry into them.
+    private static int profileMinY(LevelHeightAccessor height, long span) {
+        return Math.max(height.getMinBuildHeight(), OriginContext.spanMinY(span) - RockProfile.BAND);
+    }
+
+    private static int profileMaxY(LevelHeightAccessor height, long span) {
+        return Math.min(height.getMaxBuildHeight() - 1, OriginContext.spanMaxY(span) + RockProfile.BAND);
+    }
+
+    private static @Nullable RockProfile profileOf(@Nullable Block[] tfcRocks, int minY, ReplacementTable table) {
+        int[] rocks = new int[tfcRocks.length];
+        for (int i = 0; i < rocks.length; i++) {
+            rocks[i] = tfcRocks[i] != null ? ReplacementTable.groundRock(table.ground(tfcRocks[i])) : -1;
+        }
+        return RockProfile.of(minY, rocks);
+    }
+
+    /** Records the topmost rock at or below the top of every band, in one upward pass from {@code minY}. */
+    private static @Nullable RockProfile scanProfile(
+            ChunkAccess chunk, BlockPos origin, int minY, int maxY, ReplacementTable table) {
+        int[] rocks = new int[RockProfile.bands(minY, maxY)];
+        int x = origin.getX() & 15;
+        int z = origin.getZ() & 15;
+        int below = -1;
+        int y = minY;
+        while (y <= maxY) {
+            int sectionIndex = chunk.getSectionIndex(y);
+            LevelChunkSection section = chunk.getSection(sectionIndex);
+            if (section.hasOnlyAir()) {
+                // Air doesn't change the rock below; carry it through the section.
+                int sectionTop = Math.min(maxY, SectionPos.sectionToBlockCoord(SectionPos.blockToSectionCoord(y)) + 15);
+                for (; y <= sectionTop; y++) {
+                    rocks[RockProfile.band(minY, y)] = below;
+                }
+                continue;
+            }
+            int rock = ReplacementTable.groundRock(table.ground(section.getBlockState(x, y & 15, z).getBlock()));
+            if (rock >= 0) {
+                below = rock;
+            }
+            rocks[RockProfile.band(minY, y)] = below;
+            y++;
+        }
+        return RockProfile.of(minY, rocks);
+    }
+
+    private static long scan(
+            @Nullable Block tfcRock,
+            @Nullable ChunkAccess chunk,
+            int minBuildHeight,
+            BlockPos origin,
+            ReplacementTable table) {
+        int rock = -1;
+        if (tfcRock != null) {
+            rock = ReplacementTable.groundRock(table.ground(tfcRock));
+        }
+
+        int soil = -1;
+        int x = origin.getX();
+        int z = origin.getZ();
+        if (chunk != null) {
+            int minY = Math.max(minBuildHeight, origin.getY() - MAX_DEPTH + 1);
+            int y = origin.getY();
+            while (y >= minY && (rock < 0 || soil < 0)) {
+                int sectionIndex = chunk.getSectionIndex(y);
+                if (sectionIndex < 0 || sectionIndex >= chunk.getSectionsCount()) {
+                    y--;
+                    continue;
+                }
+                LevelChunkSection section = chunk.getSection(sectionIndex);
+                if (section.hasOnlyAir()) {
+                    // Jump to the top of the section below.
+                    y = SectionPos.sectionToBlockCoord(SectionPos.blockToSectionCoord(y)) - 1;
+                    continue;
+                }
+
+                int ground = table.ground(section.getBlockState(x & 15, y & 15, z & 15).getBlock());
+                if (rock < 0) {
+                    rock = ReplacementTable.groundRock(ground);
+                }
+                if (soil < 0) {
+                    soil = ReplacementTable.groundSoil(ground);
+                }
+                y--;
+            }
+        }
+
+        return ((long) rock << 32) | (soil & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Resolves {@code origin} from the saved summary of the column at {@code offset}; false if there is none, if its
+     * profile doesn't cover the origin's span, or if its soil was found from a different height. Summaries are only
+     * kept for the overworld; contexts without a known dimension never use them.
+     */
+    static boolean resolveFromSummary(
+            OriginContext origin, BlockPos offset, @Nullable ResourceKey<Level> dimension, int defaultSoil) {
+        if (dimension != Level.OVERWORLD) {
+            return false;
+        }
+        @Nullable ColumnSummaries.Summary summary = ColumnSummaries.get(offset.getX(), offset.getZ());
+        long span = origin.span();
+        if (summary == null
+                || !summary.profile().covers(OriginContext.spanMinY(span), OriginContext.spanMaxY(span))
+                // Soil is the first one below the origin, so a placement far above or below may have another.
+                || Math.abs(offset.getY() - summary.soilY()) >= RockProfile.BAND) {
+            return false;
+        }
+        origin.resolveColumn(
+                summary.profile().rockAt(offset.getY()),
+                summary.soil() >= 0 ? summary.soil() : defaultSoil,
+                summary.profile());
+        return true;
+    }
+
+    /**
+     * Resolves {@code origin} from a {@link #resolve} result and its column's profile, and saves them for later
+     * placements from the same overworld column.
+     */
+    static void resolveScanned(
+            OriginContext origin,
+            BlockPos offset,
+            @Nullable ResourceKey<Level> dimension,
+            long column,
+            @Nullable RockProfile profile,
+            int defaultRock,
+            int defaultSoil) {
+        int rock = rock(column);
+        int soil = soil(column);
+        origin.resolveColumn(rock >= 0 ? rock : defaultRock, soil >= 0 ? soil : defaultSoil, profile);
+        if (profile != null && dimension == Level.OVERWORLD) {
+            ColumnSummaries.record(offset.getX(), offset.getZ(), offset.getY(), profile, soil);
+        }
+    }
+
+    static int rock(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    static int soil(long packed) {
+        return (int) packed;
+    }
+}
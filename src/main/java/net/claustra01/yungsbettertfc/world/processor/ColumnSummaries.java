@@ -0,0 +1,148 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import com.mojang.logging.LogUtils;
+import java.util.List;
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.YungsBetterTfc;
+import net.claustra01.yungsbettertfc.util.LongClockCache;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.level.ColumnPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.neoforged.neoforge.event.level.LevelEvent;
+import org.slf4j.Logger;
+
+/**
+ * Rock profile and soil of the overworld columns structure placements resolved, saved with the world.
+ *
+ * <p>Context caches are in memory only, so after a restart (ex: an interrupted pregeneration run) structures whose
+ * origins were already scanned would scan them again. Resolution checks here first and records what it scans. Entries
+ * are kept per column, since rock and soil differ between columns of a chunk, and at most {@link #MAX_COLUMNS} are
+ * kept, evicting the least recently used; a column that is needed again after that is just scanned again.</p>
+ *
+ * <p>Rock and soil ids are saved against the name lists of the table that produced them and remapped on load, so a
+ * changed TFC rock list doesn't mix up rocks.</p>
+ */
+public final class ColumnSummaries extends SavedData {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    static final int MAX_COLUMNS = 1 << 16;
+
+    private static final String NAME = YungsBetterTfc.MODID + "_column_summaries";
+    private static final SavedData.Factory<ColumnSummaries> FACTORY =
+            new SavedData.Factory<>(ColumnSummaries::new, ColumnSummaries::load, null);
+
+    // Set on the server thread when the overworld loads; worldgen threads only read it.
+    private static volatile @Nullable ColumnSummaries current;
+
+    private final LongClockCache<Summary> byColumn =
+            new LongClockCache<>(MAX_COLUMNS, Runtime.getRuntime().availableProcessors());
+
+    public static void onLevelLoad(LevelEvent.Load event) {
+        if (event.getLevel() instanceof ServerLevel level && level.dimension() == Level.OVERWORLD) {
+            current = level.getDataStorage().computeIfAbsent(FACTORY, NAME);
+        }
+    }
+
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level && level.dimension() == Level.OVERWORLD) {
+            current = null;
+        }
+    }
+
+    static @Nullable Summary get(int x, int z) {
+        @Nullable ColumnSummaries summaries = current;
+        return summaries != null ? summaries.byColumn.get(ColumnPos.asLong(x, z)) : null;
+    }
+
+    /**
+     * Records a column scanned from height {@code y}; {@code soil} is -1 if none was found. Profiles only cover the
+     * heights their placement needed and soil depends on {@code y}, so a later scan replaces the summary.
+     */
+    static void record(int x, int z, int y, RockProfile profile, int soil) {
+        @Nullable ColumnSummaries summaries = current;
+        if (summaries != null) {
+            summaries.byColumn.put(ColumnPos.asLong(x, z), new Summary(profile, soil, y));
+            summaries.setDirty();
+        }
+    }
+
+    private static ColumnSummaries load(CompoundTag tag, HolderLookup.Provider registries) {
+        ReplacementTable table = ReplacementTable.get();
+        int[] rockIds = remap(tag.getList("rocks", Tag.TAG_STRING), table.rocks());
+        int[] soilIds = remap(tag.getList("soils", Tag.TAG_STRING), table.soils());
+
+        ColumnSummaries summaries = new ColumnSummaries();
+        // Summaries saved per chunk (before they were kept per column) don't say which column they came from.
+        ListTag columns = tag.getList("columns", Tag.TAG_COMPOUND);
+        int dropped = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            CompoundTag column = columns.getCompound(i);
+            if (!column.contains("soil_y", Tag.TAG_INT)) {
+                dropped++;
+                continue;
+            }
+            @Nullable RockProfile profile =
+                    RockProfile.restore(column.getInt("min_y"), column.getByteArray("rock_bands"), rockIds);
+            if (profile == null) {
+                dropped++;
+                continue;
+            }
+            int savedSoil = column.getInt("soil");
+            int soil = savedSoil >= 0 && savedSoil < soilIds.length ? soilIds[savedSoil] : -1;
+            summaries.byColumn.put(column.getLong("pos"), new Summary(profile, soil, column.getInt("soil_y")));
+        }
+        if (dropped > 0) {
+            LOGGER.debug("Dropped {} saved column summaries from an older format or whose rocks no longer exist.", dropped);
+        }
+        return summaries;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag, HolderLookup.Provider registries) {
+        ReplacementTable table = ReplacementTable.get();
+        tag.put("rocks", names(table.rocks()));
+        tag.put("soils", names(table.soils()));
+
+        ListTag columns = new ListTag();
+        byColumn.forEach((pos, summary) -> {
+            CompoundTag column = new CompoundTag();
+            column.putLong("pos", pos);
+            column.putInt("min_y", summary.profile().minY());
+            column.putByteArray("rock_bands", summary.profile().bandRocks());
+            column.putInt("soil", summary.soil());
+            column.putInt("soil_y", summary.soilY());
+            columns.add(column);
+        });
+        tag.put("columns", columns);
+        return tag;
+    }
+
+    private static ListTag names(List<String> names) {
+        ListTag list = new ListTag();
+        for (String name : names) {
+            list.add(StringTag.valueOf(name));
+        }
+        return list;
+    }
+
+    /** Maps each saved name index to the current id of that name, or -1. */
+    private static int[] remap(ListTag saved, List<String> current) {
+        int[] ids = new int[saved.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = current.indexOf(saved.getString(i));
+        }
+        return ids;
+    }
+
+    /**
+     * @param soil the soil id, or -1 if the scan found none
+     * @param soilY the height the soil was searched down from
+     */
+    record Summary(RockProfile profile, int soil, int soilY) {}
+}
@@ -0,0 +1,119 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.ModCommonConfig;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.ChunkAccess;
+
+/**
+ * Resolves the rock/soil context of a structure as soon as the ground under it is final, ahead of its pieces being
+ * placed.
+ *
+ * <p>{@link StructureContexts} queues the shared context of each new structure start under the chunk of its sample
+ * column. When that chunk finishes its carvers step, the worldgen thread that ran it scans the column right there,
+ * before the chunk moves on to features: the ground is final by then, and nothing else may write to the chunk until
+ * the step completes, so the scan never races another generation step. There is no executor of its own; the scan is
+ * a few dozen block reads on a thread that is already generating that chunk.</p>
+ *
+ * <p>Entries whose chunk was already carved when they were queued, or is never generated (ex: the player turned
+ * back), are dropped after {@link #EXPIRY_NANOS}. Placement reads the result from the shared context; if nothing was
+ * prefetched, the processor scans as before.</p>
+ */
+public final class ContextPrefetcher {
+    private static final int MAX_PENDING = 4096;
+    private static final long EXPIRY_NANOS = TimeUnit.MINUTES.toNanos(5);
+    // Expired entries are swept every this many submits, and whenever the queue is full.
+    private static final int SWEEP_INTERVAL = 256;
+
+    // Overworld chunk -> contexts waiting for its carvers; cleared when the server stops.
+    private static final Map<Long, List<Pending>> PENDING = new ConcurrentHashMap<>();
+    private static final AtomicInteger PENDING_COUNT = new AtomicInteger();
+    private static final AtomicInteger SUBMITS = new AtomicInteger();
+
+    private ContextPrefetcher() {}
+
+    /**
+     * Queues resolving {@code origin} from the column at {@code sample}, once the chunk containing it is carved. Does
+     * nothing if prefetching is disabled or backlogged (ex: pregeneration outrunning placement); placement scans
+     * instead.
+     */
+    static void submit(BlockPos sample, OriginContext origin) {
+        if (!ModCommonConfig.prefetchContext()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (SUBMITS.incrementAndGet() % SWEEP_INTERVAL == 0 || PENDING_COUNT.get() >= MAX_PENDING) {
+            sweepExpired(now);
+        }
+        if (PENDING_COUNT.incrementAndGet() > MAX_PENDING) {
+            PENDING_COUNT.decrementAndGet();
+            return;
+        }
+        Pending pending = new Pending(sample.immutable(), origin, now + EXPIRY_NANOS);
+        PENDING.compute(ChunkPos.asLong(sample), (pos, list) -> {
+            List<Pending> queued = list != null ? list : new ArrayList<>(1);
+            queued.add(pending);
+            return queued;
+        });
+    }
+
+    /** Called on the worldgen thread that just carved {@code chunk}, before its next step can start. */
+    public static void onCarved(ServerLevel level, ChunkAccess chunk) {
+        if (PENDING.isEmpty() || level.dimension() != Level.OVERWORLD) {
+            return;
+        }
+        @Nullable List<Pending> queued = PENDING.remove(chunk.getPos().toLong());
+        if (queued == null) {
+            return;
+        }
+        PENDING_COUNT.addAndGet(-queued.size());
+
+        ReplacementTable table = ReplacementTable.get();
+        // Same defaults the processor falls back to in the overworld.
+        int defaultRock = table.rockId(TfcBlockReplacementProcessor.DEFAULT_ROCK_OVERWORLD);
+        int defaultSoil = table.soilId(TfcBlockReplacementProcessor.DEFAULT_SOIL);
+        for (Pending pending : queued) {
+            OriginContext origin = pending.origin();
+            BlockPos offset = pending.offset();
+            if (origin.isColumnResolved()
+                    || ColumnContextResolver.resolveFromSummary(origin, offset, Level.OVERWORLD, defaultSoil)) {
+                continue;
+            }
+            ColumnContextResolver.resolveScanned(
+                    origin,
+                    offset,
+                    Level.OVERWORLD,
+                    ColumnContextResolver.resolve(chunk, offset, table),
+                    ColumnContextResolver.profile(chunk, offset, origin.span(), table),
+                    defaultRock,
+                    defaultSoil);
+        }
+    }
+
+    private static void sweepExpired(long now) {
+        for (Long pos : PENDING.keySet()) {
+            PENDING.computeIfPresent(pos, (key, queued) -> {
+                int before = queued.size();
+                queued.removeIf(pending -> now - pending.expiresAt() > 0);
+                PENDING_COUNT.addAndGet(queued.size() - before);
+                return queued.isEmpty() ? null : queued;
+            });
+        }
+    }
+
+    public static void onServerStopping() {
+        PENDING.clear();
+        PENDING_COUNT.set(0);
+    }
+
+    private record Pending(BlockPos offset, OriginContext origin, long expiresAt) {}
+}
@@ -0,0 +1,72 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import javax.annotation.Nullable;
+import net.minecraft.core.BlockPos;
+
+/**
+ * Rock/soil context for one template placement origin, shared by every worldgen thread through the processor's
+ * context cache, or by every piece of a structure through {@link StructureContexts}.
+ *
+ * <p>Rock and soil are resolved together, lazily, by the first block that needs either. Racing threads may resolve
+ * them twice; they compute the same result, so no locking is needed.</p>
+ */
+public final class OriginContext {
+    static final int UNRESOLVED = Integer.MIN_VALUE;
+
+    // For a structure-wide context, the column it is always resolved from; null to use the placement's own origin.
+    final @Nullable BlockPos sample;
+
+    volatile int rock = UNRESOLVED;
+    volatile int soil = UNRESOLVED;
+    // Rock by height, for placements that reach into other rock layers; null if the column had no rock.
+    volatile @Nullable RockProfile profile;
+    // Lowest (high 32 bits) and highest (low 32 bits) height placed from this context, so the profile only covers
+    // what is built; empty until the first placement or structure start widens it.
+    private volatile long span = ((long) Integer.MAX_VALUE << 32) | (Integer.MIN_VALUE & 0xFFFFFFFFL);
+
+    OriginContext() {
+        this(null);
+    }
+
+    OriginContext(@Nullable BlockPos sample) {
+        this.sample = sample != null ? sample.immutable() : null;
+    }
+
+    boolean isColumnResolved() {
+        return rock != UNRESOLVED;
+    }
+
+    void resolveColumn(int rock, int soil, @Nullable RockProfile profile) {
+        // Rock last: readers check it, so seeing it resolved implies the rest is too.
+        this.soil = soil;
+        this.profile = profile;
+        this.rock = rock;
+    }
+
+    /** Widens the span the profile has to cover to include {@code minY..maxY}. */
+    synchronized void widenSpan(int minY, int maxY) {
+        long span = this.span;
+        int from = Math.min(spanMinY(span), minY);
+        int to = Math.max(spanMaxY(span), maxY);
+        this.span = ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    /** The current span; read both ends of one value with {@link #spanMinY} and {@link #spanMaxY}. */
+    long span() {
+        return span;
+    }
+
+    static int spanMinY(long span) {
+        return (int) (span >> 32);
+    }
+
+    static int spanMaxY(long span) {
+        return (int) span;
+    }
+
+    /** The rock at height {@code y}; only valid once the column is resolved. */
+    int rockAt(int y) {
+        @Nullable RockProfile profile = this.profile;
+        return profile != null ? profile.rockAt(y) : rock;
+    }
+}
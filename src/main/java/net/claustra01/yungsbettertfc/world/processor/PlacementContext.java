@@ -0,0 +1,158 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.access.StructurePlaceSettingsAccess;
+import net.claustra01.yungsbettertfc.access.StructureTemplateIdAccess;
+import net.claustra01.yungsbettertfc.world.processor.TfcBlockReplacementProcessor.ReplacementScope;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+
+/**
+ * Everything the processor needs that is fixed for one template placement: scope, dimension defaults, mod presence,
+ * the template's wood, the replacement table snapshot and the shared origin context.
+ *
+ * <p>Created once in the {@code placeInWorld} hook and attached to the placement's settings; while attached, the
+ * processor translates the placement's blocks in one batch. Processor calls outside that hook build one per block.</p>
+ */
+public final class PlacementContext {
+    final @Nullable ResourceKey<Level> dimension;
+    final ReplacementScope scope;
+    final int variant;
+    final ReplacementTable table;
+    final int defaultRock;
+    final int defaultSoil;
+    // The template's dominant wood, or the default wood if it has none (or isn't one we analyze).
+    final int wood;
+    final OriginContext origin;
+    // Heights the template spans (just the offset's if unknown), to tell if it crosses rock layers.
+    final int minY;
+    final int maxY;
+    // False for templates whose blocks are all left alone (the processor only runs for their entities).
+    final boolean translateBlocks;
+    final @Nullable StructureTemplate template;
+    // This placement's own context, for when its structure's sample column isn't generated yet. Placements run on
+    // one thread, so it needs no synchronization.
+    private @Nullable OriginContext local;
+    // Context-free translations of the template, if resolved against this context's table.
+    final @Nullable PretranslatedPalette pretranslated;
+
+    private PlacementContext(
+            @Nullable ResourceKey<Level> dimension,
+            BlockPos offset,
+            @Nullable StructureTemplate template,
+            int flags) {
+        this.dimension = dimension;
+        // Outside the overworld, only replace blocks whose vanilla behavior clashes with TFC.
+        this.scope = dimension == null || dimension == Level.OVERWORLD
+                ? ReplacementScope.FULL
+                : ReplacementScope.UTILITY_ONLY;
+        this.variant = variantFor(dimension);
+        this.table = ReplacementTable.get();
+        this.defaultRock = table.rockId(defaultRockFor(dimension));
+        this.defaultSoil = table.soilId(TfcBlockReplacementProcessor.DEFAULT_SOIL);
+        // Without context-dependent blocks, nothing is resolved or shared, so skip the shared cache.
+        this.origin = (flags & PretranslatedPalette.NEEDS_CONTEXT) != 0
+                ? TfcBlockReplacementProcessor.originContext(dimension, offset)
+                : new OriginContext();
+        this.minY = offset.getY();
+        this.maxY = template != null ? offset.getY() + Math.max(0, template.getSize().getY() - 1) : offset.getY();
+        this.translateBlocks = (flags & PretranslatedPalette.NEEDS_BLOCKS) != 0;
+        this.template = template;
+
+        @Nullable PretranslatedPalette palette = null;
+        int dominantWood = -1;
+        if (template instanceof StructureTemplateIdAccess access) {
+            palette = access.yungsbettertfc$getPretranslatedPalette();
+            dominantWood = access.yungsbettertfc$getDominantWood();
+        }
+        this.wood = dominantWood >= 0 ? dominantWood : table.woodId(TfcBlockReplacementProcessor.DEFAULT_WOOD);
+        this.pretranslated = palette != null && palette.table() == table ? palette : null;
+    }
+
+    public static PlacementContext create(
+            @Nullable ServerLevel level, BlockPos offset, @Nullable StructureTemplate template) {
+        return create(level, offset, template, PretranslatedPalette.NEEDS_BLOCKS | PretranslatedPalette.NEEDS_CONTEXT);
+    }
+
+    /** Creates a context for a template analyzed up front; {@code flags} are its {@link PretranslatedPalette#flags()}. */
+    public static PlacementContext create(
+            @Nullable ServerLevel level, BlockPos offset, @Nullable StructureTemplate template, int flags) {
+        return new PlacementContext(level != null ? level.dimension() : null, offset, template, flags);
+    }
+
+    /** A context for this placement's own column, not shared with anything. */
+    OriginContext localOrigin() {
+        @Nullable OriginContext origin = local;
+        if (origin == null) {
+            origin = new OriginContext();
+            local = origin;
+        }
+        return origin;
+    }
+
+    /** Returns the context attached by the placement hook, if any. */
+    static @Nullable PlacementContext attached(StructurePlaceSettings settings) {
+        return settings instanceof StructurePlaceSettingsAccess access
+                ? access.yungsbettertfc$getPlacementContext()
+                : null;
+    }
+
+    /** Returns the context attached by the placement hook, or builds one from {@code level}. */
+    static PlacementContext of(
+            StructurePlaceSettings settings, LevelReader level, BlockPos offset, @Nullable StructureTemplate template) {
+        @Nullable PlacementContext context = attached(settings);
+        if (context != null) {
+            return context;
+        }
+        // In worldgen, the "level" is usually a WorldGenLevel/WorldGenRegion, not a ServerLevel.
+        return create(resolveServerLevel(level), offset, template);
+    }
+
+    /** The {@link ReplacementTable} variant used for placements in {@code dimension}. */
+    static int variantFor(@Nullable ResourceKey<Level> dimension) {
+        ReplacementScope scope = dimension == null || dimension == Level.OVERWORLD
+                ? ReplacementScope.FULL
+                : ReplacementScope.UTILITY_ONLY;
+        return ReplacementTable.variant(scope, dimension == Level.NETHER && ModPresence.BENEATH);
+    }
+
+    /** The {@link ReplacementTable} variant used for placements into {@code level}. */
+    static int variantFor(LevelReader level) {
+        @Nullable ServerLevel serverLevel = resolveServerLevel(level);
+        return variantFor(serverLevel != null ? serverLevel.dimension() : null);
+    }
+
+    private static @Nullable ServerLevel resolveServerLevel(LevelReader level) {
+        if (level instanceof ServerLevel sl) {
+            return sl;
+        }
+        if (level instanceof WorldGenLevel wgl) {
+            return wgl.getLevel();
+        }
+        return null;
+    }
+
+    private static String defaultRockFor(@Nullable ResourceKey<Level> dimension) {
+        if (dimension == Level.NETHER) {
+            return TfcBlockReplacementProcessor.DEFAULT_ROCK_NETHER;
+        }
+        if (dimension == Level.END) {
+            return TfcBlockReplacementProcessor.DEFAULT_ROCK_END;
+        }
+        return TfcBlockReplacementProcessor.DEFAULT_ROCK_OVERWORLD;
+    }
+
+    // Lazy holder: the set of loaded mods can't change while the server runs.
+    private static final class ModPresence {
+        private static final boolean BENEATH = BuiltInRegistries.BLOCK.containsKey(
+                ResourceLocation.fromNamespaceAndPath(TfcBlockReplacementProcessor.NS_BENEATH, "wood/planks/crimson"));
+    }
+}
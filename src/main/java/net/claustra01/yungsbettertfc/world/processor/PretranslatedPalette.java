@@ -0,0 +1,164 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import java.util.List;
+import javax.annotation.Nullable;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.BlockStateProperties;
+import net.minecraft.world.level.block.state.properties.DoubleBlockHalf;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+
+/**
+ * The rock/soil/wood independent part of a template's translation (ores, firepits, metals, lights, cauldrons, plants),
+ * resolved once per template.
+ *
+ * <p>Stored on the template next to its id. Placement looks up each block's state here first and only falls back to
+ * the full processor path for states that need placement context. Building it also records which kinds of
+ * translation the template needs at all, so clean templates can skip the processor.</p>
+ *
+ * <p>It also picks the template's dominant vanilla wood (the most common one among its blocks, ties to the lower id),
+ * which wood-dependent replacements use for the whole placement.</p>
+ */
+public final class PretranslatedPalette {
+    /** Some block (or jigsaw final_state) in the template is replaced. */
+    public static final int NEEDS_BLOCKS = 1;
+    /** Some replaced block depends on the rock, soil or wood around the placement. */
+    public static final int NEEDS_CONTEXT = 1 << 1;
+    /** Some item frame or armor stand holds equipment that is replaced. */
+    public static final int NEEDS_ENTITIES = 1 << 2;
+
+    private final ReplacementTable table;
+    private final Reference2ObjectOpenHashMap<BlockState, Translation>[] byVariant;
+    private int flags;
+    private int dominantWood = -1;
+
+    @SuppressWarnings("unchecked")
+    private PretranslatedPalette(ReplacementTable table) {
+        this.table = table;
+        this.byVariant = new Reference2ObjectOpenHashMap[ReplacementTable.VARIANTS];
+        for (int i = 0; i < byVariant.length; i++) {
+            byVariant[i] = new Reference2ObjectOpenHashMap<>();
+        }
+    }
+
+    public static PretranslatedPalette build(
+            List<StructureTemplate.Palette> palettes,
+            List<StructureTemplate.StructureEntityInfo> entities,
+            String equipmentMetal) {
+        ReplacementTable table = ReplacementTable.get();
+        BlockStateTranslator translator = BlockStateTranslator.get();
+        PretranslatedPalette result = new PretranslatedPalette(table);
+
+        ReferenceOpenHashSet<BlockState> seen = new ReferenceOpenHashSet<>();
+        int[] woodCounts = new int[TfcBlockReplacementProcessor.VANILLA_WOOD_TYPES.size()];
+        for (StructureTemplate.Palette palette : palettes) {
+            for (StructureTemplate.StructureBlockInfo info : palette.blocks()) {
+                BlockState in = info.state();
+                if ((in.is(Blocks.JIGSAW) || in.is(Blocks.STRUCTURE_BLOCK))
+                        && TfcBlockReplacementProcessor.replaceVanillaOreInStructureNbt(info.nbt()) != info.nbt()) {
+                    result.flags |= NEEDS_BLOCKS;
+                }
+                @Nullable ReplacementTable.Entry entry = table.entry(in.getBlock());
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.wood() >= 0) {
+                    woodCounts[entry.wood()]++;
+                }
+                if (!seen.add(in)) {
+                    continue;
+                }
+
+                for (int variant = 0; variant < ReplacementTable.VARIANTS; variant++) {
+                    @Nullable ReplacementTable.Rule rule = entry.rule(variant);
+                    if (rule != null) {
+                        result.flags |= rule.isContextFree() ? NEEDS_BLOCKS : NEEDS_BLOCKS | NEEDS_CONTEXT;
+                    }
+                    @Nullable Translation translation = translate(in, entry, variant, table, translator);
+                    if (translation != null) {
+                        result.flags |= NEEDS_BLOCKS;
+                        result.byVariant[variant].put(in, translation);
+                    }
+                }
+            }
+        }
+
+        for (int wood = 0; wood < woodCounts.length; wood++) {
+            // Strictly greater, so ties go to the lower id and the choice never depends on block order.
+            int best = result.dominantWood;
+            if (woodCounts[wood] > 0 && (best < 0 || woodCounts[wood] > woodCounts[best])) {
+                result.dominantWood = wood;
+            }
+        }
+
+        for (StructureTemplate.StructureEntityInfo entity : entities) {
+            if (TfcBlockReplacementProcessor.entityNeedsTranslation(entity.nbt, equipmentMetal)) {
+                result.flags |= NEEDS_ENTITIES;
+                break;
+            }
+        }
+
+        for (Reference2ObjectOpenHashMap<BlockState, Translation> map : result.byVariant) {
+            map.trim();
+        }
+        return result;
+    }
+
+    private static @Nullable Translation translate(
+            BlockState in,
+            ReplacementTable.Entry entry,
+            int variant,
+            ReplacementTable table,
+            BlockStateTranslator translator) {
+        if (in.is(Blocks.TALL_SEAGRASS)
+                && in.hasProperty(BlockStateProperties.DOUBLE_BLOCK_HALF)
+                && in.getValue(BlockStateProperties.DOUBLE_BLOCK_HALF) == DoubleBlockHalf.UPPER) {
+            return new Translation(Blocks.WATER.defaultBlockState(), false);
+        }
+
+        @Nullable ReplacementTable.Rule rule = entry.rule(variant);
+        if (rule == null || !rule.isContextFree()) {
+            return null;
+        }
+        @Nullable Block outBlock = rule.resolve(-1, -1, -1);
+        if (outBlock == null) {
+            return null;
+        }
+
+        BlockState out = translator.translate(in, outBlock);
+        boolean firepit = outBlock == table.firepit();
+        if (firepit) {
+            out = TfcBlockReplacementProcessor.applyFirepitAxisFromFacing(in, out);
+        }
+        return new Translation(out, firepit);
+    }
+
+    /** The table this palette was resolved against; a rebuilt table invalidates it. */
+    ReplacementTable table() {
+        return table;
+    }
+
+    /** {@link #NEEDS_BLOCKS}, {@link #NEEDS_CONTEXT} and {@link #NEEDS_ENTITIES} bits; 0 if nothing changes. */
+    public int flags() {
+        return flags;
+    }
+
+    /** The most common vanilla wood id among the template's blocks, or -1 if it has no wooden blocks. */
+    public int dominantWood() {
+        return dominantWood;
+    }
+
+    public boolean isCurrent() {
+        return table == ReplacementTable.get();
+    }
+
+    @Nullable Translation get(int variant, BlockState state) {
+        return byVariant[variant].get(state);
+    }
+
+    /** @param dropNbt whether the block entity tag must be dropped (ex: furnace -> firepit) */
+    record Translation(BlockState state, boolean dropNbt) {}
+}
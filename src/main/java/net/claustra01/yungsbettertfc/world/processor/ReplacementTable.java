@@ -0,0 +1,477 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.world.processor.TfcBlockReplacementProcessor.ReplacementScope;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import org.slf4j.Logger;
+
+/**
+ * Precompiled vanilla -> TFC block replacements.
+ *
+ * <p>Every vanilla block is run through {@link TfcBlockReplacementProcessor}'s mapping chain once, after registries
+ * freeze. Rock/soil/wood dependent mappings are expanded into arrays indexed by the rock/soil/wood ids of this table,
+ * so placing a block is an identity-map lookup plus an array read.</p>
+ */
+public final class ReplacementTable {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    /** Number of distinct (scope, Beneath present) combinations a rule is compiled for. */
+    static final int VARIANTS = 3;
+
+    static final String ROCK_PLACEHOLDER = "{rock}";
+    static final String SOIL_PLACEHOLDER = "{soil}";
+    static final String WOOD_PLACEHOLDER = "{wood}";
+
+    private static volatile @Nullable ReplacementTable builtIn;
+    // Swapped as a whole on datapack reload; readers only ever see a fully built table.
+    private static volatile @Nullable ReplacementTable current;
+
+    private final List<String> rocks;
+    private final List<String> soils;
+    private final Object2IntOpenHashMap<String> rockIds;
+    private final Object2IntOpenHashMap<String> soilIds;
+    private final Object2IntOpenHashMap<String> woodIds;
+    private final Reference2ObjectOpenHashMap<Block, Entry> entries;
+    private final Reference2IntOpenHashMap<Block> ground;
+    private final @Nullable Block firepit;
+
+    private ReplacementTable(
+            List<String> rocks,
+            List<String> soils,
+            Reference2ObjectOpenHashMap<Block, Entry> entries,
+            Reference2IntOpenHashMap<Block> ground) {
+        this.rocks = List.copyOf(rocks);
+        this.soils = List.copyOf(soils);
+        this.rockIds = indexOf(this.rocks);
+        this.soilIds = indexOf(this.soils);
+        this.woodIds = indexOf(TfcBlockReplacementProcessor.VANILLA_WOOD_TYPES);
+        this.entries = entries;
+        this.ground = ground;
+        this.firepit = BuiltInRegistries.BLOCK.getOptional(TfcBlockReplacementProcessor.TFC_FIREPIT).orElse(null);
+    }
+
+    /**
+     * Returns the current table: the built-in mappings plus any datapack rules. The built-in table is built on first
+     * use; registries must be frozen by then.
+     */
+    public static ReplacementTable get() {
+        ReplacementTable table = current;
+        return table != null ? table : builtIn();
+    }
+
+    private static ReplacementTable builtIn() {
+        ReplacementTable table = builtIn;
+        if (table == null) {
+            synchronized (ReplacementTable.class) {
+                table = builtIn;
+                if (table == null) {
+                    table = build();
+                    builtIn = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /** Publishes the built-in table with {@code dataRules} layered on top. Called from the datapack reload. */
+    static void install(List<DataRule> dataRules) {
+        current = withOverrides(builtIn(), dataRules);
+    }
+
+    static int variant(ReplacementScope scope, boolean beneathNether) {
+        if (scope == ReplacementScope.FULL) {
+            return 0;
+        }
+        return beneathNether ? 2 : 1;
+    }
+
+    @Nullable Entry entry(Block block) {
+        return entries.get(block);
+    }
+
+    /**
+     * Classifies a TFC ground block: {@code > 0} is rock id + 1, {@code < 0} is -(soil id + 1), {@code 0} is neither.
+     */
+    int ground(Block block) {
+        return ground.getInt(block);
+    }
+
+    static int groundRock(int ground) {
+        return ground > 0 ? ground - 1 : -1;
+    }
+
+    static int groundSoil(int ground) {
+        return ground < 0 ? -ground - 1 : -1;
+    }
+
+    @Nullable Block firepit() {
+        return firepit;
+    }
+
+    int rockId(@Nullable String rock) {
+        return rock == null ? -1 : rockIds.getInt(rock);
+    }
+
+    int soilId(@Nullable String soil) {
+        return soil == null ? -1 : soilIds.getInt(soil);
+    }
+
+    int woodId(@Nullable String wood) {
+        return wood == null ? -1 : woodIds.getInt(wood);
+    }
+
+    /** Rock names in id order. */
+    List<String> rocks() {
+        return rocks;
+    }
+
+    /** Soil names in id order. */
+    List<String> soils() {
+        return soils;
+    }
+
+    @Nullable String rockName(int id) {
+        return id >= 0 && id < rocks.size() ? rocks.get(id) : null;
+    }
+
+    @Nullable String soilName(int id) {
+        return id >= 0 && id < soils.size() ? soils.get(id) : null;
+    }
+
+    @Nullable String woodName(int id) {
+        List<String> woods = TfcBlockReplacementProcessor.VANILLA_WOOD_TYPES;
+        return id >= 0 && id < woods.size() ? woods.get(id) : null;
+    }
+
+    private static ReplacementTable build() {
+        long start = System.nanoTime();
+
+        List<String> rocks = collectVariants("rock/raw/", TfcBlockReplacementProcessor.DEFAULT_ROCK_OVERWORLD,
+                TfcBlockReplacementProcessor.DEFAULT_ROCK_NETHER, TfcBlockReplacementProcessor.DEFAULT_ROCK_END);
+        List<String> soils = collectVariants("dirt/", TfcBlockReplacementProcessor.DEFAULT_SOIL);
+        List<String> woods = TfcBlockReplacementProcessor.VANILLA_WOOD_TYPES;
+
+        Reference2ObjectOpenHashMap<Block, Entry> entries = new Reference2ObjectOpenHashMap<>();
+        for (Map.Entry<ResourceKey<Block>, Block> registryEntry : BuiltInRegistries.BLOCK.entrySet()) {
+            ResourceLocation id = registryEntry.getKey().location();
+            if (!TfcBlockReplacementProcessor.NS_MINECRAFT.equals(id.getNamespace())) {
+                continue;
+            }
+
+            String path = id.getPath();
+            boolean infested = false;
+            if (path.startsWith("infested_")) {
+                infested = true;
+                path = path.substring("infested_".length());
+            }
+
+            @Nullable Rule full = compile(path, infested, ReplacementScope.FULL, false, rocks, soils, woods);
+            @Nullable Rule utility = compile(path, infested, ReplacementScope.UTILITY_ONLY, false, rocks, soils, woods);
+            @Nullable Rule utilityBeneath =
+                    compile(path, infested, ReplacementScope.UTILITY_ONLY, true, rocks, soils, woods);
+            int wood = indexOf(woods, TfcBlockReplacementProcessor.detectVanillaWoodType(path));
+            if (full == null && utility == null && utilityBeneath == null && wood < 0) {
+                continue;
+            }
+            entries.put(registryEntry.getValue(), new Entry(full, utility, utilityBeneath, wood));
+        }
+        entries.trim();
+
+        ReplacementTable table = new ReplacementTable(rocks, soils, entries, classifyGround(rocks, soils));
+        LOGGER.info(
+                "Built TFC block replacement table: {} vanilla blocks, {} rocks, {} soils in {} ms.",
+                entries.size(),
+                rocks.size(),
+                soils.size(),
+                (System.nanoTime() - start) / 1_000_000L);
+        return table;
+    }
+
+    /**
+     * Compiles one (block, scope) pair. The mapping chain depends on at most one of rock/soil/wood for any given
+     * block, so we probe each dimension against the defaults and expand only the one that changes the result.
+     */
+    private static @Nullable Rule compile(
+            String path,
+            boolean infested,
+            ReplacementScope scope,
+            boolean beneathNether,
+            List<String> rocks,
+            List<String> soils,
+            List<String> woods) {
+        String rock0 = TfcBlockReplacementProcessor.DEFAULT_ROCK_OVERWORLD;
+        String soil0 = TfcBlockReplacementProcessor.DEFAULT_SOIL;
+        String wood0 = TfcBlockReplacementProcessor.DEFAULT_WOOD;
+
+        @Nullable ResourceLocation base =
+                TfcBlockReplacementProcessor.mapVanillaToTfc(path, rock0, soil0, wood0, infested, scope, beneathNether);
+        if (base == null) {
+            return null;
+        }
+
+        for (String rock : rocks) {
+            if (!base.equals(TfcBlockReplacementProcessor.mapVanillaToTfc(
+                    path, rock, soil0, wood0, infested, scope, beneathNether))) {
+                Block[] targets = new Block[rocks.size()];
+                for (int i = 0; i < targets.length; i++) {
+                    targets[i] = resolve(TfcBlockReplacementProcessor.mapVanillaToTfc(
+                            path, rocks.get(i), soil0, wood0, infested, scope, beneathNether));
+                }
+                return Rule.of(Rule.BY_ROCK, targets);
+            }
+        }
+
+        for (String soil : soils) {
+            if (!base.equals(TfcBlockReplacementProcessor.mapVanillaToTfc(
+                    path, rock0, soil, wood0, infested, scope, beneathNether))) {
+                Block[] targets = new Block[soils.size()];
+                for (int i = 0; i < targets.length; i++) {
+                    targets[i] = resolve(TfcBlockReplacementProcessor.mapVanillaToTfc(
+                            path, rock0, soils.get(i), wood0, infested, scope, beneathNether));
+                }
+                return Rule.of(Rule.BY_SOIL, targets);
+            }
+        }
+
+        for (String wood : woods) {
+            if (!base.equals(TfcBlockReplacementProcessor.mapVanillaToTfc(
+                    path, rock0, soil0, wood, infested, scope, beneathNether))) {
+                Block[] targets = new Block[woods.size()];
+                for (int i = 0; i < targets.length; i++) {
+                    targets[i] = resolve(TfcBlockReplacementProcessor.mapVanillaToTfc(
+                            path, rock0, soil0, woods.get(i), infested, scope, beneathNether));
+                }
+                return Rule.of(Rule.BY_WOOD, targets);
+            }
+        }
+
+        return Rule.of(Rule.FIXED, new Block[] {resolve(base)});
+    }
+
+    private static ReplacementTable withOverrides(ReplacementTable base, List<DataRule> dataRules) {
+        if (dataRules.isEmpty()) {
+            // Keep the same instance so pretranslated palettes stay current.
+            return base;
+        }
+
+        long start = System.nanoTime();
+        Reference2ObjectOpenHashMap<Block, Entry> entries = new Reference2ObjectOpenHashMap<>(base.entries);
+        for (DataRule dataRule : dataRules) {
+            @Nullable Rule compiled = null;
+            if (dataRule.target() != null) {
+                compiled = compileTarget(dataRule.target(), base.rocks, base.soils);
+                if (compiled == null) {
+                    LOGGER.warn("Block replacement rule {} -> {} matches no block, ignoring it.",
+                            BuiltInRegistries.BLOCK.getKey(dataRule.source()), dataRule.target());
+                    continue;
+                }
+            }
+
+            @Nullable Entry old = entries.get(dataRule.source());
+            Rule[] rules = old != null
+                    ? new Rule[] {old.full(), old.utility(), old.utilityBeneath()}
+                    : new Rule[VARIANTS];
+            for (int variant : dataRule.variants()) {
+                rules[variant] = compiled;
+            }
+            int wood = old != null ? old.wood() : indexOf(
+                    TfcBlockReplacementProcessor.VANILLA_WOOD_TYPES,
+                    TfcBlockReplacementProcessor.detectVanillaWoodType(
+                            BuiltInRegistries.BLOCK.getKey(dataRule.source()).getPath()));
+            entries.put(dataRule.source(), new Entry(rules[0], rules[1], rules[2], wood));
+        }
+        entries.trim();
+
+        ReplacementTable table = new ReplacementTable(base.rocks, base.soils, entries, base.ground);
+        LOGGER.info(
+                "Applied {} datapack block replacement rules in {} ms.",
+                dataRules.size(),
+                (System.nanoTime() - start) / 1_000_000L);
+        return table;
+    }
+
+    /**
+     * Compiles a datapack target, which may use one of {@code {rock}}, {@code {soil}} or {@code {wood}}. Wood names go
+     * through the same fallbacks as the built-in wood mappings.
+     */
+    private static @Nullable Rule compileTarget(String target, List<String> rocks, List<String> soils) {
+        if (target.contains(ROCK_PLACEHOLDER)) {
+            Block[] targets = new Block[rocks.size()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = resolve(ResourceLocation.tryParse(target.replace(ROCK_PLACEHOLDER, rocks.get(i))));
+            }
+            return Rule.of(Rule.BY_ROCK, targets);
+        }
+        if (target.contains(SOIL_PLACEHOLDER)) {
+            Block[] targets = new Block[soils.size()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = resolve(ResourceLocation.tryParse(target.replace(SOIL_PLACEHOLDER, soils.get(i))));
+            }
+            return Rule.of(Rule.BY_SOIL, targets);
+        }
+        if (target.contains(WOOD_PLACEHOLDER)) {
+            List<String> woods = TfcBlockReplacementProcessor.VANILLA_WOOD_TYPES;
+            @Nullable Block fallback = resolve(ResourceLocation.tryParse(
+                    target.replace(WOOD_PLACEHOLDER, TfcBlockReplacementProcessor.DEFAULT_WOOD)));
+            Block[] targets = new Block[woods.size()];
+            for (int i = 0; i < targets.length; i++) {
+                @Nullable Block block = resolve(ResourceLocation.tryParse(
+                        target.replace(WOOD_PLACEHOLDER, TfcBlockReplacementProcessor.normalizeWood(woods.get(i)))));
+                targets[i] = block != null ? block : fallback;
+            }
+            return Rule.of(Rule.BY_WOOD, targets);
+        }
+        return Rule.of(Rule.FIXED, new Block[] {resolve(ResourceLocation.tryParse(target))});
+    }
+
+    /** Maps every TFC rock and soil block to its rock/soil id, in the encoding of {@link #ground(Block)}. */
+    private static Reference2IntOpenHashMap<Block> classifyGround(List<String> rocks, List<String> soils) {
+        Reference2IntOpenHashMap<Block> ground = new Reference2IntOpenHashMap<>();
+        for (Map.Entry<ResourceKey<Block>, Block> registryEntry : BuiltInRegistries.BLOCK.entrySet()) {
+            ResourceLocation id = registryEntry.getKey().location();
+            if (!TfcBlockReplacementProcessor.NS_TFC.equals(id.getNamespace())) {
+                continue;
+            }
+            int rock = indexOf(rocks, TfcBlockReplacementProcessor.rockNameFromTfcPath(id.getPath()));
+            if (rock >= 0) {
+                ground.put(registryEntry.getValue(), rock + 1);
+                continue;
+            }
+            int soil = indexOf(soils, TfcBlockReplacementProcessor.soilNameFromTfcPath(id.getPath()));
+            if (soil >= 0) {
+                ground.put(registryEntry.getValue(), -(soil + 1));
+            }
+        }
+        ground.trim();
+        return ground;
+    }
+
+    private static @Nullable Block resolve(@Nullable ResourceLocation id) {
+        if (id == null) {
+            return null;
+        }
+        Block block = BuiltInRegistries.BLOCK.getOptional(id).orElse(null);
+        return block == Blocks.AIR ? null : block;
+    }
+
+    /** Collects the last path segment of every {@code tfc:<prefix><name>} block, plus the given defaults. */
+    private static List<String> collectVariants(String prefix, String... defaults) {
+        Set<String> names = new LinkedHashSet<>();
+        for (ResourceLocation id : BuiltInRegistries.BLOCK.keySet()) {
+            if (!TfcBlockReplacementProcessor.NS_TFC.equals(id.getNamespace())) {
+                continue;
+            }
+            String path = id.getPath();
+            if (path.startsWith(prefix) && path.indexOf('/', prefix.length()) < 0) {
+                names.add(path.substring(prefix.length()));
+            }
+        }
+        names.addAll(List.of(defaults));
+        return new ArrayList<>(names);
+    }
+
+    private static int indexOf(List<String> names, @Nullable String name) {
+        return name == null ? -1 : names.indexOf(name);
+    }
+
+    private static Object2IntOpenHashMap<String> indexOf(List<String> names) {
+        Object2IntOpenHashMap<String> ids = new Object2IntOpenHashMap<>(names.size());
+        ids.defaultReturnValue(-1);
+        for (int i = 0; i < names.size(); i++) {
+            ids.put(names.get(i), i);
+        }
+        return ids;
+    }
+
+    /**
+     * A datapack rule: replace {@code source} with {@code target} in the given variants, or keep it unreplaced there if
+     * {@code target} is null.
+     */
+    record DataRule(Block source, @Nullable String target, int[] variants) {}
+
+    /** Per-source-block data: the compiled rule for each scope, and the vanilla wood the block name encodes. */
+    record Entry(@Nullable Rule full, @Nullable Rule utility, @Nullable Rule utilityBeneath, int wood) {
+        @Nullable Rule rule(ReplacementScope scope, boolean beneathNether) {
+            return rule(variant(scope, beneathNether));
+        }
+
+        @Nullable Rule rule(int variant) {
+            return switch (variant) {
+                case 0 -> full;
+                case 1 -> utility;
+                default -> utilityBeneath;
+            };
+        }
+
+        /** Returns false if placements of {@code variant} never change {@code block}, this entry's block. */
+        boolean mayReplace(Block block, int variant) {
+            // The processor turns the upper half of tall seagrass into water whenever it has an entry.
+            return rule(variant) != null || block == Blocks.TALL_SEAGRASS;
+        }
+    }
+
+    /** A compiled replacement: either a fixed target, or targets indexed by rock, soil or wood id. */
+    static final class Rule {
+        static final int FIXED = 0;
+        static final int BY_ROCK = 1;
+        static final int BY_SOIL = 2;
+        static final int BY_WOOD = 3;
+
+        private final int kind;
+        private final @Nullable Block[] targets;
+
+        private Rule(int kind, @Nullable Block[] targets) {
+            this.kind = kind;
+            this.targets = targets;
+        }
+
+        private static @Nullable Rule of(int kind, @Nullable Block[] targets) {
+            for (Block target : targets) {
+                if (target != null) {
+                    return new Rule(kind, targets);
+                }
+            }
+            return null;
+        }
+
+        /** True if the target doesn't depend on rock, soil or wood, so it can be resolved ahead of placement. */
+        boolean isContextFree() {
+            return kind == FIXED;
+        }
+
+        boolean needsRock() {
+            return kind == BY_ROCK;
+        }
+
+        boolean needsSoil() {
+            return kind == BY_SOIL;
+        }
+
+        boolean needsWood() {
+            return kind == BY_WOOD;
+        }
+
+        @Nullable Block resolve(int rock, int soil, int wood) {
+            int index = switch (kind) {
+                case BY_ROCK -> rock;
+                case BY_SOIL -> soil;
+                case BY_WOOD -> wood;
+                default -> 0;
+            };
+            return index >= 0 && index < targets.length ? targets[index] : null;
+        }
+    }
+}
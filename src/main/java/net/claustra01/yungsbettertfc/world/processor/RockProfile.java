@@ -0,0 +1,117 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import javax.annotation.Nullable;
+
+/**
+ * Rock ids by height for one column, in bands of {@link #BAND} blocks.
+ *
+ * <p>TFC layers rock by depth, so a structure that reaches far below its origin shouldn't be built entirely from the
+ * top layer's rock. The profile is built once per placement context and read with a shift and an array index per
+ * block. Bands where no rock was found take the nearest rock below them (or, at the bottom, above them).</p>
+ */
+final class RockProfile {
+    static final int BAND_BITS = 3;
+    static final int BAND = 1 << BAND_BITS;
+
+    private static final byte NONE = -1;
+
+    private final int minY;
+    private final byte[] rocks;
+
+    private RockProfile(int minY, byte[] rocks) {
+        this.minY = minY;
+        this.rocks = rocks;
+    }
+
+    static int bands(int minY, int maxY) {
+        return ((maxY - minY) >> BAND_BITS) + 1;
+    }
+
+    static int band(int minY, int y) {
+        return (y - minY) >> BAND_BITS;
+    }
+
+    /**
+     * Builds a profile from one rock id (or -1) per band, starting at {@code minY}. Returns null if no band has a rock,
+     * or if the table has more rocks than fit in a byte.
+     */
+    static @Nullable RockProfile of(int minY, int[] bandRocks) {
+        byte[] rocks = new byte[bandRocks.length];
+        int below = NONE;
+        int firstFound = -1;
+        for (int i = 0; i < bandRocks.length; i++) {
+            int rock = bandRocks[i];
+            if (rock >= 0xFF) {
+                return null;
+            }
+            if (rock >= 0) {
+                below = rock;
+                if (firstFound < 0) {
+                    firstFound = i;
+                }
+            }
+            rocks[i] = (byte) below;
+        }
+        if (firstFound < 0) {
+            return null;
+        }
+        for (int i = 0; i < firstFound; i++) {
+            rocks[i] = rocks[firstFound];
+        }
+        return new RockProfile(minY, rocks);
+    }
+
+    /**
+     * Rebuilds a profile from {@link #bandRocks()}, remapping each saved id through {@code ids}. Returns null if a band
+     * maps to no current rock.
+     */
+    static @Nullable RockProfile restore(int minY, byte[] bandRocks, int[] ids) {
+        byte[] rocks = new byte[bandRocks.length];
+        for (int i = 0; i < rocks.length; i++) {
+            int saved = bandRocks[i] & 0xFF;
+            int id = saved < ids.length ? ids[saved] : -1;
+            if (id < 0 || id >= 0xFF) {
+                return null;
+            }
+            rocks[i] = (byte) id;
+        }
+        return new RockProfile(minY, rocks);
+    }
+
+    int minY() {
+        return minY;
+    }
+
+    /** The top of the highest band. */
+    int maxY() {
+        return minY + (rocks.length << BAND_BITS) - 1;
+    }
+
+    /** Whether the profile has its own bands for every height from {@code fromY} to {@code toY}. */
+    boolean covers(int fromY, int toY) {
+        return minY <= fromY && toY <= maxY();
+    }
+
+    /** The rock id of each band, as unsigned bytes; don't modify. */
+    byte[] bandRocks() {
+        return rocks;
+    }
+
+    /** The rock id at {@code y}; heights outside the profile use the nearest band. */
+    int rockAt(int y) {
+        int band = Math.max(0, Math.min(rocks.length - 1, band(minY, y)));
+        return rocks[band] & 0xFF;
+    }
+
+    /** Whether every height from {@code fromY} to {@code toY} has the same rock. */
+    boolean isUniform(int fromY, int toY) {
+        int from = Math.max(0, Math.min(rocks.length - 1, band(minY, fromY)));
+        int to = Math.max(0, Math.min(rocks.length - 1, band(minY, toY)));
+        for (int i = from + 1; i <= to; i++) {
+            if (rocks[i] != rocks[from]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,153 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.access.StructureStartAccess;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import net.minecraft.world.level.levelgen.structure.PoolElementStructurePiece;
+import net.minecraft.world.level.levelgen.structure.Structure;
+import net.minecraft.world.level.levelgen.structure.StructurePiece;
+import net.minecraft.world.level.levelgen.structure.StructureStart;
+import net.minecraft.world.level.levelgen.structure.TemplateStructurePiece;
+
+/**
+ * Shares one rock/soil context across every piece of a structure start.
+ *
+ * <p>Placement looks contexts up by the piece's template offset. When a chunk's structure starts are created (or
+ * loaded), all piece offsets of a supported structure are pointed at one context held by the start, so a stronghold
+ * with a hundred rooms scans one column instead of a hundred and builds every room from the same rock. The offsets
+ * are kept in a side table of weak references rather than the processor's bounded cache: nothing can evict them while
+ * the start is loaded, and they go away with it.</p>
+ *
+ * <p>The context is then prefetched from the start piece's column when its chunk is carved (see
+ * {@link ContextPrefetcher}); if a piece is placed before that, placement resolves it from that same column.</p>
+ */
+public final class StructureContexts {
+    // Piece offset -> the context of its structure start, per dimension. Only the start holds the context strongly.
+    private static final ConcurrentHashMap<ResourceKey<Level>, ConcurrentHashMap<Long, SharedRef>> BY_DIMENSION =
+            new ConcurrentHashMap<>();
+    private static final ReferenceQueue<OriginContext> RELEASED = new ReferenceQueue<>();
+
+    private StructureContexts() {}
+
+    /** The context shared by the structure start placing a piece at {@code offset}, or null if none is loaded. */
+    static @Nullable OriginContext shared(ResourceKey<Level> dimension, BlockPos offset) {
+        @Nullable ConcurrentHashMap<Long, SharedRef> byOffset = BY_DIMENSION.get(dimension);
+        if (byOffset == null) {
+            return null;
+        }
+        @Nullable SharedRef ref = byOffset.get(offset.asLong());
+        return ref != null ? ref.get() : null;
+    }
+
+    public static void onServerStopping() {
+        // References still queued no longer match any entry, so expunging them later is harmless.
+        BY_DIMENSION.clear();
+    }
+
+    public static void onStructureStarts(ServerLevel level, ChunkAccess chunk) {
+        // Only the overworld uses rock/soil; chunks loaded with their pieces already placed need nothing.
+        if (level.dimension() != Level.OVERWORLD
+                || chunk.getPersistedStatus().isOrAfter(ChunkStatus.FEATURES)
+                || chunk.getAllStarts().isEmpty()) {
+            return;
+        }
+
+        Registry<Structure> structures = level.registryAccess().registryOrThrow(Registries.STRUCTURE);
+        for (StructureStart start : chunk.getAllStarts().values()) {
+            if (!start.isValid()) {
+                continue;
+            }
+            @Nullable ResourceLocation id = structures.getKey(start.getStructure());
+            if (id == null || !TfcBlockReplacementProcessor.STRUCTURE_NAMESPACES.contains(id.getNamespace())) {
+                continue;
+            }
+            share(level, start);
+        }
+    }
+
+    private static void share(ServerLevel level, StructureStart start) {
+        expungeReleased();
+        ConcurrentHashMap<Long, SharedRef> byOffset =
+                BY_DIMENSION.computeIfAbsent(level.dimension(), key -> new ConcurrentHashMap<>());
+        StructureStartAccess access = (StructureStartAccess) (Object) start;
+        @Nullable OriginContext shared = access.yungsbettertfc$getSharedContext();
+        @Nullable BlockPos sample = null;
+        for (StructurePiece piece : start.getPieces()) {
+            @Nullable BlockPos offset = templateOffset(piece);
+            if (offset == null) {
+                continue;
+            }
+            if (shared == null) {
+                // The start piece's origin: fixed by the start, so the whole structure resolves from one column no
+                // matter which piece is placed first.
+                shared = new OriginContext(offset);
+                access.yungsbettertfc$setSharedContext(shared);
+            }
+            if (sample == null) {
+                sample = shared.sample;
+            }
+            long key = offset.asLong();
+            OriginContext context = shared;
+            // Keeps the context of another loaded start placing at the same offset.
+            byOffset.compute(key, (pos, ref) -> ref != null && ref.get() != null
+                    ? ref
+                    : new SharedRef(context, level.dimension(), key, RELEASED));
+        }
+        if (shared != null && !shared.isColumnResolved()) {
+            // Every piece builds from this profile, so it has to cover the whole structure's height.
+            BoundingBox box = start.getBoundingBox();
+            shared.widenSpan(box.minY(), box.maxY());
+            ContextPrefetcher.submit(sample, shared);
+        }
+    }
+
+    /** Removes the offsets of structure starts that have been unloaded. */
+    private static void expungeReleased() {
+        for (Reference<? extends OriginContext> released; (released = RELEASED.poll()) != null; ) {
+            SharedRef ref = (SharedRef) released;
+            @Nullable ConcurrentHashMap<Long, SharedRef> byOffset = BY_DIMENSION.get(ref.dimension);
+            if (byOffset != null) {
+                byOffset.remove(ref.offset, ref);
+            }
+        }
+    }
+
+    /** The offset the piece's template is placed at, which is the key of its origin context. */
+    private static @Nullable BlockPos templateOffset(StructurePiece piece) {
+        if (piece instanceof PoolElementStructurePiece poolPiece) {
+            return poolPiece.getPosition();
+        }
+        if (piece instanceof TemplateStructurePiece templatePiece) {
+            return templatePiece.templatePosition();
+        }
+        return null;
+    }
+
+    private static final class SharedRef extends WeakReference<OriginContext> {
+        private final ResourceKey<Level> dimension;
+        private final long offset;
+
+        private SharedRef(
+                OriginContext context,
+                ResourceKey<Level> dimension,
+                long offset,
+                ReferenceQueue<? super OriginContext> queue) {
+            super(context, queue);
+            this.dimension = dimension;
+            this.offset = offset;
+        }
+    }
+}
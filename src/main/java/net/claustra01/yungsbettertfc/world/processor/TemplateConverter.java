@@ -0,0 +1,253 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.access.StructureTemplateIdAccess;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.FileToIdConverter;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.packs.PackType;
+import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplateManager;
+import net.minecraft.world.level.storage.LevelResource;
+import org.slf4j.Logger;
+
+/**
+ * Writes pre-translated copies of every supported template into a datapack in the world's {@code datapacks} folder.
+ *
+ * <p>Only the context-free part of the translation is baked in (the same part {@link PretranslatedPalette} resolves),
+ * for the dimension the structure normally generates in. Rock, soil and wood dependent blocks keep their vanilla
+ * state as the placeholder; once the pack is enabled, placement only has to fill those in. Blocks that name a vanilla
+ * wood (planks, logs, stairs...) also stay vanilla even though their own translation is fixed: they are what the
+ * template's dominant wood is counted from, so baking them would leave its chests and workbenches on the default
+ * wood.</p>
+ *
+ * <p>Templates are read from the packs below ours, never from our own output or the manager's cache (which holds our
+ * output once the pack is enabled), and the pack's data is cleared before writing. So a rerun after the rules change
+ * starts over from the originals, and templates that no longer change don't keep a stale converted copy.</p>
+ *
+ * <p>Reads and writes every supported template, so run it off the server thread.</p>
+ */
+public final class TemplateConverter {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    public static final String PACK_NAME = "yungsbettertfc_converted";
+    // Id of our folder in the world's datapacks directory, as the server lists it.
+    private static final String PACK_ID = "file/" + PACK_NAME;
+    private static final FileToIdConverter TEMPLATE_FILES = new FileToIdConverter("structure", ".nbt");
+
+    private TemplateConverter() {}
+
+    /** @param pack the datapack folder the templates were written to */
+    public record Result(int converted, int unchanged, int failed, Path pack) {}
+
+    /** Converts every supported template; takes seconds, so don't call it on the server thread. */
+    public static Result convertAll(MinecraftServer server) throws IOException {
+        long start = System.nanoTime();
+        Path pack = server.getWorldPath(LevelResource.DATAPACK_DIR).resolve(PACK_NAME);
+        Path data = pack.resolve(PackType.SERVER_DATA.getDirectory());
+        deleteRecursively(data);
+        StructureTemplateManager manager = server.getStructureManager();
+        ResourceManager resources = server.getResourceManager();
+        HolderGetter<Block> blocks = BuiltInRegistries.BLOCK.asLookup();
+        List<ResourceLocation> ids = manager.listTemplates()
+                .filter(id -> TfcBlockReplacementProcessor.STRUCTURE_NAMESPACES.contains(id.getNamespace()))
+                .sorted()
+                .toList();
+
+        int converted = 0;
+        int unchanged = 0;
+        int failed = 0;
+        for (ResourceLocation id : ids) {
+            @Nullable Resource original = original(resources, id);
+            if (original == null) {
+                // Only our own (now deleted) output had it, or it isn't a pack file at all.
+                continue;
+            }
+            StructureTemplate template;
+            try (InputStream in = original.open()) {
+                template = manager.readStructure(NbtIo.readCompressed(in, NbtAccounter.unlimitedHeap()));
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Failed to read structure template {}: {}", id, e.toString());
+                failed++;
+                continue;
+            }
+            if (!(template instanceof StructureTemplateIdAccess access)) {
+                failed++;
+                continue;
+            }
+            // The id drives the palette analysis (and equipment metal), as getOrCreate's hook would set it.
+            access.yungsbettertfc$setTemplateId(id);
+            access.yungsbettertfc$ensurePretranslated();
+            @Nullable PretranslatedPalette palette = access.yungsbettertfc$getPretranslatedPalette();
+            if (palette == null) {
+                failed++;
+                continue;
+            }
+
+            CompoundTag tag = template.save(new CompoundTag());
+            int variant = PlacementContext.variantFor(homeDimension(id));
+            if (!convert(tag, palette, variant, access.yungsbettertfc$getEquipmentMetal(), blocks)) {
+                unchanged++;
+                continue;
+            }
+
+            Path file = data.resolve(id.getNamespace())
+                    .resolve("structure")
+                    .resolve(id.getPath() + ".nbt");
+            Files.createDirectories(file.getParent());
+            NbtIo.writeCompressed(tag, file);
+            converted++;
+        }
+
+        // Always written, so an emptied pack stays a valid pack instead of a stale one.
+        writePackMeta(pack);
+        LOGGER.info(
+                "Converted {} templates ({} unchanged, {} failed) into {} in {} ms.",
+                converted,
+                unchanged,
+                failed,
+                pack,
+                (System.nanoTime() - start) / 1_000_000L);
+        return new Result(converted, unchanged, failed, pack);
+    }
+
+    /** The highest-priority file for {@code id} outside our own pack, or null if there is none. */
+    private static @Nullable Resource original(ResourceManager resources, ResourceLocation id) {
+        List<Resource> stack = resources.getResourceStack(TEMPLATE_FILES.idToFile(id));
+        // Lowest priority first.
+        for (int i = stack.size() - 1; i >= 0; i--) {
+            if (!stack.get(i).sourcePackId().equals(PACK_ID)) {
+                return stack.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            // Deepest first, so directories are empty when they are deleted.
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /** Rewrites the saved template in place; returns whether anything changed. */
+    private static boolean convert(
+            CompoundTag tag,
+            PretranslatedPalette pretranslated,
+            int variant,
+            String metal,
+            HolderGetter<Block> blocks) {
+        List<ListTag> palettes = new ArrayList<>();
+        if (tag.contains("palettes", Tag.TAG_LIST)) {
+            ListTag all = tag.getList("palettes", Tag.TAG_LIST);
+            for (int i = 0; i < all.size(); i++) {
+                palettes.add(all.getList(i));
+            }
+        } else {
+            palettes.add(tag.getList("palette", Tag.TAG_COMPOUND));
+        }
+
+        boolean changed = false;
+        // Palette indices are shared by every palette, so a dropped or rewritten tag applies to all of them.
+        IntOpenHashSet dropNbt = new IntOpenHashSet();
+        IntOpenHashSet finalStates = new IntOpenHashSet();
+        for (ListTag palette : palettes) {
+            for (int i = 0; i < palette.size(); i++) {
+                BlockState in = NbtUtils.readBlockState(blocks, palette.getCompound(i));
+                if (in.is(Blocks.JIGSAW) || in.is(Blocks.STRUCTURE_BLOCK)) {
+                    finalStates.add(i);
+                }
+                @Nullable PretranslatedPalette.Translation translation = pretranslated.get(variant, in);
+                if (translation == null || carriesWood(pretranslated, in)) {
+                    continue;
+                }
+                palette.set(i, NbtUtils.writeBlockState(translation.state()));
+                if (translation.dropNbt()) {
+                    dropNbt.add(i);
+                }
+                changed = true;
+            }
+        }
+
+        ListTag blockList = tag.getList("blocks", Tag.TAG_COMPOUND);
+        for (int i = 0; i < blockList.size(); i++) {
+            CompoundTag block = blockList.getCompound(i);
+            int state = block.getInt("state");
+            if (dropNbt.contains(state)) {
+                block.remove("nbt");
+            } else if (finalStates.contains(state) && block.contains("nbt", Tag.TAG_COMPOUND)) {
+                CompoundTag nbt = block.getCompound("nbt");
+                @Nullable CompoundTag out = TfcBlockReplacementProcessor.replaceVanillaOreInStructureNbt(nbt);
+                if (out != null && out != nbt) {
+                    block.put("nbt", out);
+                    changed = true;
+                }
+            }
+        }
+
+        ListTag entities = tag.getList("entities", Tag.TAG_COMPOUND);
+        for (int i = 0; i < entities.size(); i++) {
+            CompoundTag entity = entities.getCompound(i);
+            CompoundTag nbt = entity.getCompound("nbt");
+            CompoundTag out = TfcBlockReplacementProcessor.translateEntity(nbt, metal);
+            if (out != nbt) {
+                entity.put("nbt", out);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /** Whether {@code state} counts towards the template's dominant wood, see {@link PretranslatedPalette}. */
+    private static boolean carriesWood(PretranslatedPalette pretranslated, BlockState state) {
+        @Nullable ReplacementTable.Entry entry = pretranslated.table().entry(state.getBlock());
+        return entry != null && entry.wood() >= 0;
+    }
+
+    private static ResourceKey<Level> homeDimension(ResourceLocation templateId) {
+        return switch (templateId.getNamespace()) {
+            case "betterfortresses", "beneath" -> Level.NETHER;
+            default -> Level.OVERWORLD;
+        };
+    }
+
+    private static void writePackMeta(Path pack) throws IOException {
+        Files.createDirectories(pack);
+        int format = SharedConstants.getCurrentVersion().getPackVersion(PackType.SERVER_DATA);
+        Files.writeString(
+                pack.resolve("pack.mcmeta"),
+                "{\"pack\":{\"pack_format\":" + format
+                        + ",\"description\":\"YUNG's templates pre-converted for TerraFirmaCraft\"}}");
+    }
+}
@@ -0,0 +1,103 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import com.mojang.logging.LogUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.ModCommonConfig;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplateManager;
+import net.neoforged.neoforge.event.server.ServerAboutToStartEvent;
+import org.slf4j.Logger;
+
+/**
+ * Optionally loads every supported template while the server starts, so the first structures of a session don't
+ * stall chunk generation on reading, parsing and analyzing their {@code .nbt} files.
+ *
+ * <p>Templates go through the manager's own cache ({@code getOrCreate}), which also runs our template id hook and
+ * palette analysis, so later lookups from worldgen are plain cache hits. The manager's cache is a concurrent map, so
+ * the loads run in parallel on a short-lived fork-join pool, in the background; worldgen asking for a template first
+ * just loads it itself. The pool is shut down if the server stops before it is done.</p>
+ */
+public final class TemplatePreloader {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static volatile @Nullable ForkJoinPool pool;
+
+    private TemplatePreloader() {}
+
+    public static void onServerAboutToStart(ServerAboutToStartEvent event) {
+        if (ModCommonConfig.preloadTemplates()) {
+            preload(event.getServer());
+        }
+    }
+
+    public static void onServerStopping() {
+        @Nullable ForkJoinPool running = pool;
+        pool = null;
+        if (running != null) {
+            running.shutdownNow();
+        }
+    }
+
+    private static void preload(MinecraftServer server) {
+        long start = System.nanoTime();
+        StructureTemplateManager manager = server.getStructureManager();
+        List<ResourceLocation> ids = manager.listTemplates()
+                .filter(id -> TfcBlockReplacementProcessor.STRUCTURE_NAMESPACES.contains(id.getNamespace()))
+                .toList();
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ForkJoinPool executor = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("yungsbettertfc-template-preload-" + thread.getPoolIndex());
+            // Fork-join workers may get the system class loader, which can't see mod classes loaded through it.
+            thread.setContextClassLoader(TemplatePreloader.class.getClassLoader());
+            return thread;
+        }, null, false);
+        pool = executor;
+
+        executor.execute(() -> {
+            int failed = 0;
+            try {
+                List<ForkJoinTask<Boolean>> tasks = new ArrayList<>(ids.size());
+                for (ResourceLocation id : ids) {
+                    tasks.add(executor.submit(() -> load(manager, id)));
+                }
+                for (ForkJoinTask<Boolean> task : tasks) {
+                    if (!task.join()) {
+                        failed++;
+                    }
+                }
+            } catch (CancellationException e) {
+                LOGGER.debug("Stopped preloading structure templates: the server is stopping.");
+                return;
+            } finally {
+                executor.shutdown();
+            }
+
+            LOGGER.info(
+                    "Preloaded {} structure templates ({} failed) on {} threads in {} ms.",
+                    ids.size() - failed,
+                    failed,
+                    threads,
+                    (System.nanoTime() - start) / 1_000_000L);
+        });
+    }
+
+    private static boolean load(StructureTemplateManager manager, ResourceLocation id) {
+        try {
+            manager.getOrCreate(id);
+            return true;
+        } catch (RuntimeException e) {
+            // Worldgen will hit (and report) the same problem if the template is ever used.
+            LOGGER.debug("Failed to preload structure template {}: {}", id, e.toString());
+            return false;
+        }
+    }
+}
@@ -2,30 +2,35 @@ package net.claustra01.yungsbettertfc.world.processor;
 
 import com.mojang.serialization.MapCodec;
 import com.mojang.logging.LogUtils;
-import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
+import net.claustra01.yungsbettertfc.ModCommonConfig;
 import net.claustra01.yungsbettertfc.ModStructureProcessors;
 import net.claustra01.yungsbettertfc.access.StructureTemplateIdAccess;
+import net.claustra01.yungsbettertfc.util.LongClockCache;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
 import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.LevelReader;
-import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.ServerLevelAccessor;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.level.block.state.StateDefinition;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
 import net.minecraft.world.level.block.state.properties.DoubleBlockHalf;
-import net.minecraft.world.level.block.state.properties.Property;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessor;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessorType;
@@ -46,21 +51,31 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
     public static final TfcBlockReplacementProcessor INSTANCE = new TfcBlockReplacementProcessor();
     public static final MapCodec<TfcBlockReplacementProcessor> CODEC = MapCodec.unit(INSTANCE);
 
-    private static final String NS_MINECRAFT = "minecraft";
-    private static final String NS_TFC = "tfc";
-    private static final String NS_BENEATH = "beneath";
+    static final String NS_MINECRAFT = "minecraft";
+    static final String NS_TFC = "tfc";
+    static final String NS_BENEATH = "beneath";
+
+    /** Namespaces whose templates get the processor. */
+    public static final Set<String> STRUCTURE_NAMESPACES =
+            Set.of(
+                    "betterstrongholds",
+                    "betterdungeons",
+                    "betteroceanmonuments",
+                    "betterfortresses",
+                    "beneath");
 
-    private static final String DEFAULT_ROCK_OVERWORLD = "granite";
-    private static final String DEFAULT_ROCK_NETHER = "basalt";
-    private static final String DEFAULT_ROCK_END = "granite";
+    static final String DEFAULT_ROCK_OVERWORLD = "granite";
+    static final String DEFAULT_ROCK_NETHER = "basalt";
+    static final String DEFAULT_ROCK_END = "granite";
 
-    private static final String DEFAULT_SOIL = "mollisol";
-    private static final String DEFAULT_WOOD = "oak";
+    static final String DEFAULT_SOIL = "mollisol";
+    static final String DEFAULT_WOOD = "oak";
 
-    private static final ResourceLocation TFC_FIREPIT = ResourceLocation.fromNamespaceAndPath(NS_TFC, "firepit");
+    static final ResourceLocation TFC_FIREPIT = ResourceLocation.fromNamespaceAndPath(NS_TFC, "firepit");
 
-    private static final Set<String> VANILLA_WOOD_TYPES =
-            Set.of(
+    // Ordered: the index doubles as the wood id in ReplacementTable.
+    static final List<String> VANILLA_WOOD_TYPES =
+            List.of(
                     "oak",
                     "spruce",
                     "birch",
@@ -71,14 +86,11 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
                     "cherry",
                     "bamboo");
 
-    private static final ThreadLocal<Long2ObjectOpenHashMap<String>> ROCK_CACHE =
-            ThreadLocal.withInitial(Long2ObjectOpenHashMap::new);
-    private static final ThreadLocal<Long2ObjectOpenHashMap<String>> SOIL_CACHE =
-            ThreadLocal.withInitial(Long2ObjectOpenHashMap::new);
-    private static final ThreadLocal<Long2ObjectOpenHashMap<String>> WOOD_CACHE =
-            ThreadLocal.withInitial(Long2ObjectOpenHashMap::new);
+    private static final String[] NO_STACKS = {};
+    private static final String[] ITEM_FRAME_STACKS = {"Item"};
+    private static final String[] ARMOR_STAND_STACKS = {"ArmorItems", "HandItems"};
 
-    private enum ReplacementScope {
+    enum ReplacementScope {
         FULL,
         UTILITY_ONLY
     }
@@ -99,142 +111,292 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
             StructureTemplate.StructureBlockInfo processedBlockInfo,
             StructurePlaceSettings settings,
             @Nullable StructureTemplate template) {
-        // In worldgen, the "level" is usually a WorldGenLevel/WorldGenRegion, not a ServerLevel.
-        // We resolve the underlying ServerLevel for dimension-specific defaults.
-        var serverLevel = resolveServerLevel(level);
-        ReplacementScope scope = ReplacementScope.FULL;
-        if (serverLevel != null && serverLevel.dimension() != Level.OVERWORLD) {
-            scope = ReplacementScope.UTILITY_ONLY;
-        }
-        boolean beneathNether =
-                serverLevel != null
-                        && serverLevel.dimension() == Level.NETHER
-                        && BuiltInRegistries.BLOCK.containsKey(
-                                ResourceLocation.fromNamespaceAndPath(NS_BENEATH, "wood/planks/crimson"));
-
-        BlockState in = processedBlockInfo.state();
-        Block inBlock = in.getBlock();
+        // Placements through our placeInWorld hook are translated in one sweep by finalizeProcessing.
+        if (PlacementContext.attached(settings) != null) {
+            return processedBlockInfo;
+        }
 
         // Skip air quickly.
-        if (in.isAir()) {
+        BlockState state = processedBlockInfo.state();
+        if (state.isAir()) {
             return processedBlockInfo;
         }
+        // Most template blocks (glass, wool, redstone...) have no entry; one identity lookup rejects them before any
+        // per-level work. Only blocks that have one pay for working out the dimension's variant.
+        Block block = state.getBlock();
+        if (block != Blocks.JIGSAW && block != Blocks.STRUCTURE_BLOCK) {
+            @Nullable ReplacementTable.Entry entry = ReplacementTable.get().entry(block);
+            if (entry == null || !entry.mayReplace(block, PlacementContext.variantFor(level))) {
+                return processedBlockInfo;
+            }
+        }
 
-        ResourceLocation inId = BuiltInRegistries.BLOCK.getKey(inBlock);
-        if (!NS_MINECRAFT.equals(inId.getNamespace())) {
-            return processedBlockInfo;
+        PlacementContext context = PlacementContext.of(settings, level, offset, template);
+        return processBlock(level, offset, context, processedBlockInfo, null);
+    }
+
+    @Override
+    public List<StructureTemplate.StructureBlockInfo> finalizeProcessing(
+            ServerLevelAccessor level,
+            BlockPos offset,
+            BlockPos pos,
+            List<StructureTemplate.StructureBlockInfo> originalBlockInfos,
+            List<StructureTemplate.StructureBlockInfo> processedBlockInfos,
+            StructurePlaceSettings settings) {
+        @Nullable PlacementContext context = PlacementContext.attached(settings);
+        // Templates hooked only for their entities have no block that would change; skip the sweep.
+        if (context == null || !context.translateBlocks) {
+            return processedBlockInfos;
         }
 
-        String path = inId.getPath();
-        boolean infested = false;
-        if (path.startsWith("infested_")) {
-            infested = true;
-            path = path.substring("infested_".length());
+        return processBatch(level, offset, context, processedBlockInfos);
+    }
+
+    static List<StructureTemplate.StructureBlockInfo> processBatch(
+            LevelReader level,
+            BlockPos offset,
+            PlacementContext context,
+            List<StructureTemplate.StructureBlockInfo> blockInfos) {
+        List<StructureTemplate.StructureBlockInfo> out =
+                blockInfos instanceof ArrayList ? blockInfos : new ArrayList<>(blockInfos);
+        // Templates repeat a few dozen states thousands of times; translate each distinct state once.
+        Reference2ObjectOpenHashMap<BlockState, Translated> memo = new Reference2ObjectOpenHashMap<>();
+        for (int i = 0; i < out.size(); i++) {
+            StructureTemplate.StructureBlockInfo info = out.get(i);
+            StructureTemplate.StructureBlockInfo processed = processBlock(level, offset, context, info, memo);
+            if (processed != info) {
+                out.set(i, processed);
+            }
         }
+        return out;
+    }
 
-        CompoundTag outNbt = replaceVanillaOreInStructureNbt(processedBlockInfo.nbt());
+    private static StructureTemplate.StructureBlockInfo processBlock(
+            LevelReader level,
+            BlockPos offset,
+            PlacementContext context,
+            StructureTemplate.StructureBlockInfo info,
+            @Nullable Reference2ObjectOpenHashMap<BlockState, Translated> memo) {
+        BlockState in = info.state();
+        if (in.isAir()) {
+            return info;
+        }
+
+        // Only jigsaw blocks (and structure blocks, which share the tag layout) carry a final_state.
+        Block inBlock = in.getBlock();
+        CompoundTag outNbt = inBlock == Blocks.JIGSAW || inBlock == Blocks.STRUCTURE_BLOCK
+                ? replaceVanillaOreInStructureNbt(info.nbt())
+                : info.nbt();
+
+        @Nullable Translated translated = memo != null ? memo.get(in) : null;
+        if (translated == null) {
+            translated = translateState(in, context, level, offset, info.pos().getY());
+            if (memo != null && !translated.layered()) {
+                memo.put(in, translated);
+            }
+        }
+
+        @Nullable BlockState out = translated.state();
+        if (out == null) {
+            return withNbt(info, outNbt);
+        }
+        return new StructureTemplate.StructureBlockInfo(info.pos(), out, translated.dropNbt() ? null : outNbt);
+    }
+
+    private static Translated translateState(
+            BlockState in, PlacementContext context, LevelReader level, BlockPos offset, int y) {
+        Block inBlock = in.getBlock();
+
+        // Only vanilla blocks have entries; everything else (modded, already-TFC) falls through here.
+        ReplacementTable table = context.table;
+        @Nullable ReplacementTable.Entry entry = table.entry(inBlock);
+        if (entry == null) {
+            return Translated.UNCHANGED;
+        }
 
         // Tall seagrass is a double-block plant. Replacing it with a single-block aquatic plant works best if the upper
         // half becomes water (otherwise the "upper" plant block tends to pop off).
-        if ("tall_seagrass".equals(path)
+        if (inBlock == Blocks.TALL_SEAGRASS
                 && in.hasProperty(BlockStateProperties.DOUBLE_BLOCK_HALF)
                 && in.getValue(BlockStateProperties.DOUBLE_BLOCK_HALF) == DoubleBlockHalf.UPPER) {
-            return new StructureTemplate.StructureBlockInfo(
-                    processedBlockInfo.pos(), Blocks.WATER.defaultBlockState(), processedBlockInfo.nbt());
+            return new Translated(Blocks.WATER.defaultBlockState(), false, false);
         }
 
-        // Cache context once per template placement origin (offset).
-        long cacheKey = offset.asLong();
-        String rock = DEFAULT_ROCK_OVERWORLD;
-        String soil = DEFAULT_SOIL;
-        if (scope == ReplacementScope.FULL) {
-            String defaultRock = defaultRockFor(serverLevel);
-
-            Long2ObjectOpenHashMap<String> rockCache = ROCK_CACHE.get();
-            if (rockCache.size() > 2048) {
-                rockCache.clear();
-            }
-            String cachedRock = rockCache.get(cacheKey);
-            if (cachedRock == null) {
-                cachedRock = findRockNameBelow(level, offset);
-                if (cachedRock == null) {
-                    cachedRock = defaultRock;
-                }
-                rockCache.put(cacheKey, cachedRock);
-            }
-            rock = cachedRock;
+        int variant = context.variant;
 
-            Long2ObjectOpenHashMap<String> soilCache = SOIL_CACHE.get();
-            if (soilCache.size() > 2048) {
-                soilCache.clear();
+        // Context-free translations were resolved once for the whole template.
+        if (context.pretranslated != null) {
+            @Nullable PretranslatedPalette.Translation translation = context.pretranslated.get(variant, in);
+            if (translation != null) {
+                return new Translated(translation.state(), translation.dropNbt(), false);
             }
-            String cachedSoil = soilCache.get(cacheKey);
-            if (cachedSoil == null) {
-                cachedSoil = findSoilNameBelow(level, offset);
-                if (cachedSoil == null) {
-                    cachedSoil = DEFAULT_SOIL;
-                }
-                soilCache.put(cacheKey, cachedSoil);
-            }
-            soil = cachedSoil;
         }
 
-        Long2ObjectOpenHashMap<String> woodCache = WOOD_CACHE.get();
-        if (woodCache.size() > 2048) {
-            woodCache.clear();
-        }
-        String woodHint = woodCache.get(cacheKey);
-        if (woodHint == null) {
-            @Nullable String detected = detectVanillaWoodType(path);
-            if (detected != null) {
-                woodHint = detected;
-                woodCache.put(cacheKey, woodHint);
-            } else {
-                woodHint = DEFAULT_WOOD;
-            }
+        @Nullable ReplacementTable.Rule rule = entry.rule(variant);
+        if (rule == null) {
+            return Translated.UNCHANGED;
         }
 
-        @Nullable ResourceLocation outId =
-                mapVanillaToTfc(path, rock, soil, woodHint, infested, scope, beneathNether);
-        if (outId == null) {
-            if (outNbt != processedBlockInfo.nbt()) {
-                return new StructureTemplate.StructureBlockInfo(processedBlockInfo.pos(), in, outNbt);
-            }
-            return processedBlockInfo;
+        int wood = context.wood;
+        int rock = table.rockId(DEFAULT_ROCK_OVERWORLD);
+        int soil = context.defaultSoil;
+        // Whether the result depends on the block's height, because the placement spans several rock layers.
+        boolean layered = false;
+        if (context.scope == ReplacementScope.FULL && (rule.needsRock() || rule.needsSoil())) {
+            OriginContext origin = resolvedOrigin(context, level, offset, soil);
+            rock = origin.rockAt(y);
+            soil = origin.soil;
+            @Nullable RockProfile profile = origin.profile;
+            layered = rule.needsRock() && profile != null && !profile.isUniform(context.minY, context.maxY);
         }
 
-        Block outBlock = BuiltInRegistries.BLOCK.getOptional(outId).orElse(null);
-        if (outBlock == null || outBlock == Blocks.AIR) {
-            return processedBlockInfo;
+        @Nullable Block outBlock = rule.resolve(rock, soil, wood);
+        if (outBlock == null) {
+            return layered ? Translated.UNCHANGED_LAYERED : Translated.UNCHANGED;
         }
 
-        BlockState out = copyPropertiesByName(in, outBlock.defaultBlockState());
+        BlockState out = BlockStateTranslator.get().translate(in, outBlock);
         if (LOGGED_FIRST_REPLACEMENT.compareAndSet(false, true)) {
             @Nullable ResourceLocation templateId = null;
-            if (template instanceof StructureTemplateIdAccess access) {
+            if (context.template instanceof StructureTemplateIdAccess access) {
                 templateId = access.yungsbettertfc$getTemplateId();
             }
             LOGGER.info(
                     "Activated TFC block replacement processor. Example: {} -> {} (template {}, dim {}, rock {}, soil {}, wood {}).",
-                    inId,
-                    outId,
+                    BuiltInRegistries.BLOCK.getKey(inBlock),
+                    BuiltInRegistries.BLOCK.getKey(outBlock),
                     templateId,
-                    serverLevel != null ? serverLevel.dimension().location() : null,
-                    rock,
-                    soil,
-                    woodHint);
+                    context.dimension != null ? context.dimension.location() : null,
+                    table.rockName(rock),
+                    table.soilName(soil),
+                    table.woodName(wood));
         }
 
-        if (TFC_FIREPIT.equals(outId)) {
-            out = applyFirepitAxisFromFacing(in, out);
+        if (outBlock == table.firepit()) {
             // Furnace/campfire block entity tags don't make sense on a firepit and can cause odd behavior.
-            outNbt = null;
+            return new Translated(applyFirepitAxisFromFacing(in, out), true, layered);
+        }
+        return new Translated(out, false, layered);
+    }
+
+    /**
+     * Returns the context shared by every placement at {@code offset} in {@code dimension}, across worldgen threads,
+     * and by the other pieces of its structure if {@link StructureContexts} linked them. Without a dimension nothing
+     * is shared.
+     */
+    static OriginContext originContext(@Nullable ResourceKey<Level> dimension, BlockPos offset) {
+        if (dimension == null) {
+            return new OriginContext();
+        }
+        // Structure-wide contexts live with their start, outside the evictable cache.
+        @Nullable OriginContext shared = StructureContexts.shared(dimension, offset);
+        if (shared != null) {
+            return shared;
+        }
+        return ContextCache.forDimension(dimension).computeIfAbsent(offset.asLong(), key -> new OriginContext());
+    }
+
+    /**
+     * Logs hit/miss counters of the shared placement context caches, so they can be sized for the worker count, then
+     * clears them: offsets only identify a placement within one world.
+     */
+    public static void onServerStopping() {
+        ContextCache.BY_DIMENSION.forEach((dimension, cache) -> {
+            long hits = cache.hits();
+            long misses = cache.misses();
+            long lookups = hits + misses;
+            LOGGER.info(
+                    "Placement context cache ({}): {}/{} entries, {} hits, {} misses ({}% hit rate), {} evictions.",
+                    dimension.location(),
+                    cache.size(),
+                    cache.capacity(),
+                    hits,
+                    misses,
+                    lookups == 0 ? 0 : hits * 100 / lookups,
+                    cache.evictions());
+        });
+        ContextCache.BY_DIMENSION.clear();
+    }
+
+    /**
+     * The placement's origin context, resolved. A structure-wide context is only ever resolved from its sample column,
+     * so its rock and soil don't depend on which piece a worldgen thread places first; while that column isn't
+     * generated yet, the piece builds from its own column instead and leaves the shared context for later.
+     */
+    private static OriginContext resolvedOrigin(
+            PlacementContext context, LevelReader level, BlockPos offset, int defaultSoil) {
+        OriginContext origin = context.origin;
+        if (origin.isColumnResolved()) {
+            return origin;
+        }
+        BlockPos column = offset;
+        if (origin.sample != null) {
+            if (ColumnContextResolver.isGroundFinal(level, origin.sample)) {
+                column = origin.sample;
+            } else {
+                origin = context.localOrigin();
+                if (origin.isColumnResolved()) {
+                    return origin;
+                }
+            }
         }
 
-        return new StructureTemplate.StructureBlockInfo(processedBlockInfo.pos(), out, outNbt);
+        origin.widenSpan(context.minY, context.maxY);
+        if (!ColumnContextResolver.resolveFromSummary(origin, column, context.dimension, defaultSoil)) {
+            ReplacementTable table = context.table;
+            ColumnContextResolver.resolveScanned(
+                    origin,
+                    column,
+                    context.dimension,
+                    ColumnContextResolver.resolve(level, column, table),
+                    ColumnContextResolver.profile(level, column, origin.span(), table),
+                    context.defaultRock,
+                    defaultSoil);
+        }
+        return origin;
     }
 
-    private static BlockState applyFirepitAxisFromFacing(BlockState from, BlockState firepit) {
+    private static StructureTemplate.StructureBlockInfo withNbt(
+            StructureTemplate.StructureBlockInfo info, @Nullable CompoundTag nbt) {
+        if (nbt == info.nbt()) {
+            return info;
+        }
+        return new StructureTemplate.StructureBlockInfo(info.pos(), info.state(), nbt);
+    }
+
+    /**
+     * The placement-wide part of a block's translation.
+     *
+     * @param state the replacement state, or null to keep the block
+     * @param layered whether it only holds for blocks in the same rock layer
+     */
+    private record Translated(@Nullable BlockState state, boolean dropNbt, boolean layered) {
+        static final Translated UNCHANGED = new Translated(null, false, false);
+        static final Translated UNCHANGED_LAYERED = new Translated(null, false, true);
+    }
+
+    /**
+     * Rewritten final_state strings, shared across placements. YUNG templates repeat a few hundred distinct values
+     * across thousands of jigsaw blocks; past {@link #MAX_SIZE} new values are just not cached.
+     */
+    private static final class FinalStates {
+        private static final int MAX_SIZE = 4096;
+        private static final Object UNCHANGED = new Object();
+        private static final ConcurrentHashMap<String, Object> REWRITTEN = new ConcurrentHashMap<>();
+    }
+
+    // Lazy holder so the configured size is read once the config has loaded.
+    private static final class ContextCache {
+        private static final ConcurrentHashMap<ResourceKey<Level>, LongClockCache<OriginContext>> BY_DIMENSION =
+                new ConcurrentHashMap<>();
+
+        static LongClockCache<OriginContext> forDimension(ResourceKey<Level> dimension) {
+            return BY_DIMENSION.computeIfAbsent(dimension, key -> new LongClockCache<>(
+                    ModCommonConfig.contextCacheSize(), Runtime.getRuntime().availableProcessors()));
+        }
+    }
+
+    static BlockState applyFirepitAxisFromFacing(BlockState from, BlockState firepit) {
         if (!from.hasProperty(BlockStateProperties.HORIZONTAL_FACING)) {
             return firepit;
         }
@@ -263,75 +425,69 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
             StructurePlaceSettings settings,
             StructureTemplate template) {
         CompoundTag nbt = processedEntityInfo.nbt;
-        String id = nbt.getString("id");
-        if (id.isEmpty()) {
-            return processedEntityInfo;
-        }
-        ResourceLocation entityId = ResourceLocation.tryParse(id);
-        if (entityId == null || !NS_MINECRAFT.equals(entityId.getNamespace())) {
-            return processedEntityInfo;
-        }
+        CompoundTag out = translateEntity(nbt, equipmentMetalFor(template));
+        return out == nbt
+                ? processedEntityInfo
+                : new StructureEntityInfo(processedEntityInfo.pos, processedEntityInfo.blockPos, out);
+    }
 
-        String metal = equipmentMetalForTemplate(template);
-        boolean changed = false;
-        CompoundTag out = nbt.copy();
-        switch (entityId.getPath()) {
-            case "item_frame":
-            case "glow_item_frame":
-                changed |= replaceItemStackInTag(out, "Item", metal);
-                break;
-            case "armor_stand":
-                changed |= replaceItemStacksInList(out, "ArmorItems", metal);
-                changed |= replaceItemStacksInList(out, "HandItems", metal);
-                break;
-            default:
-                break;
+    /** Returns a copy of {@code nbt} with its equipment replaced, or {@code nbt} itself if nothing is replaced. */
+    static CompoundTag translateEntity(CompoundTag nbt, String metal) {
+        // Look before copying: most frames and stands hold nothing we replace.
+        if (!entityNeedsTranslation(nbt, metal)) {
+            return nbt;
         }
 
-        if (!changed) {
-            return processedEntityInfo;
+        String[] stackKeys = stackKeysFor(nbt);
+        Map<String, String> translation = TfcRefs.get().equipment(metal);
+        CompoundTag out = nbt.copy();
+        for (String key : stackKeys) {
+            translateStacks(out, key, translation, true);
         }
-        return new StructureEntityInfo(processedEntityInfo.pos, processedEntityInfo.blockPos, out);
+        return out;
     }
 
-    private static String equipmentMetalForTemplate(StructureTemplate template) {
-        @Nullable ResourceLocation templateId = null;
-        if (template instanceof StructureTemplateIdAccess access) {
-            templateId = access.yungsbettertfc$getTemplateId();
+    /** Whether {@link #processEntity} would replace any equipment on this entity. */
+    static boolean entityNeedsTranslation(CompoundTag nbt, String metal) {
+        String[] stackKeys = stackKeysFor(nbt);
+        if (stackKeys.length == 0) {
+            return false;
         }
-
-        // Better Strongholds: treat as endgame structure and upgrade displayed gear.
-        if (templateId != null && "betterstrongholds".equals(templateId.getNamespace())) {
-            return "black_steel";
+        Map<String, String> translation = TfcRefs.get().equipment(metal);
+        for (String key : stackKeys) {
+            if (translateStacks(nbt, key, translation, false)) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        return "wrought_iron";
+    private static String[] stackKeysFor(CompoundTag entityNbt) {
+        return switch (entityNbt.getString("id")) {
+            case "minecraft:item_frame", "minecraft:glow_item_frame", "item_frame", "glow_item_frame" -> ITEM_FRAME_STACKS;
+            case "minecraft:armor_stand", "armor_stand" -> ARMOR_STAND_STACKS;
+            default -> NO_STACKS;
+        };
     }
 
-    private static @Nullable net.minecraft.server.level.ServerLevel resolveServerLevel(LevelReader level) {
-        if (level instanceof net.minecraft.server.level.ServerLevel sl) {
-            return sl;
-        }
-        if (level instanceof WorldGenLevel wgl) {
-            return wgl.getLevel();
+    private static String equipmentMetalFor(StructureTemplate template) {
+        if (template instanceof StructureTemplateIdAccess access) {
+            return access.yungsbettertfc$getEquipmentMetal();
         }
-        return null;
+        return TfcRefs.METAL_DEFAULT;
     }
 
-    private static String defaultRockFor(@Nullable ServerLevel level) {
-        if (level == null) {
-            return DEFAULT_ROCK_OVERWORLD;
-        }
-        if (level.dimension() == Level.NETHER) {
-            return DEFAULT_ROCK_NETHER;
-        }
-        if (level.dimension() == Level.END) {
-            return DEFAULT_ROCK_END;
+    /** The metal tier that displayed gear in a template is upgraded to. */
+    public static String equipmentMetalForTemplate(@Nullable ResourceLocation templateId) {
+        // Better Strongholds: treat as endgame structure and upgrade displayed gear.
+        if (templateId != null && "betterstrongholds".equals(templateId.getNamespace())) {
+            return TfcRefs.METAL_ENDGAME;
         }
-        return DEFAULT_ROCK_OVERWORLD;
+
+        return TfcRefs.METAL_DEFAULT;
     }
 
-    private static @Nullable ResourceLocation mapVanillaToTfc(
+    static @Nullable ResourceLocation mapVanillaToTfc(
             String vanillaPath,
             String rock,
             String soil,
@@ -495,20 +651,7 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
     }
 
     private static @Nullable ResourceLocation mapOre(String vanillaPath) {
-        return switch (vanillaPath) {
-            case "coal_ore", "deepslate_coal_ore" -> firstExistingTfcBlock("ore/normal_lignite", "ore/normal_bituminous_coal");
-            case "iron_ore", "deepslate_iron_ore" ->
-                    firstExistingTfcBlock("ore/normal_hematite", "ore/normal_magnetite", "ore/normal_limonite");
-            case "copper_ore", "deepslate_copper_ore" -> firstExistingTfcBlock("ore/normal_native_copper");
-            case "gold_ore", "deepslate_gold_ore" -> firstExistingTfcBlock("ore/normal_native_gold");
-            case "nether_gold_ore" -> firstExistingTfcBlock("ore/normal_nether_gold", "ore/normal_native_gold");
-            case "lapis_ore", "deepslate_lapis_ore" -> firstExistingTfcBlock("ore/normal_lapis_lazuli");
-            case "diamond_ore", "deepslate_diamond_ore" -> firstExistingTfcBlock("ore/normal_diamond");
-            case "emerald_ore", "deepslate_emerald_ore" -> firstExistingTfcBlock("ore/normal_emerald");
-            case "redstone_ore", "deepslate_redstone_ore" -> firstExistingTfcBlock("ore/normal_cinnabar");
-            case "nether_quartz_ore" -> firstExistingTfcBlock("ore/normal_quartz");
-            default -> null;
-        };
+        return TfcRefs.get().ore(vanillaPath);
     }
 
     private static @Nullable ResourceLocation mapStone(String vanillaPath, String rock, boolean infested) {
@@ -818,10 +961,9 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
 
         // Flower pots.
         if (vanillaPath.startsWith("potted_")) {
-            String plant = vanillaPath.substring("potted_".length());
-            ResourceLocation candidate = ResourceLocation.fromNamespaceAndPath(NS_TFC, "plant/potted/" + plant);
-            if (BuiltInRegistries.BLOCK.containsKey(candidate)) {
-                return candidate;
+            @Nullable ResourceLocation potted = TfcRefs.get().decor(vanillaPath);
+            if (potted != null) {
+                return potted;
             }
         }
 
@@ -829,21 +971,13 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
         if ("candle".equals(vanillaPath)) {
             return ResourceLocation.fromNamespaceAndPath(NS_TFC, "candle");
         }
-        if (vanillaPath.endsWith("_candle")) {
-            String color = vanillaPath.substring(0, vanillaPath.length() - "_candle".length());
-            ResourceLocation candidate = ResourceLocation.fromNamespaceAndPath(NS_TFC, "candle/" + color);
-            if (BuiltInRegistries.BLOCK.containsKey(candidate)) {
-                return candidate;
-            }
-        }
         if ("candle_cake".equals(vanillaPath)) {
             return ResourceLocation.fromNamespaceAndPath(NS_TFC, "candle_cake");
         }
-        if (vanillaPath.endsWith("_candle_cake")) {
-            String color = vanillaPath.substring(0, vanillaPath.length() - "_candle_cake".length());
-            ResourceLocation candidate = ResourceLocation.fromNamespaceAndPath(NS_TFC, "candle_cake/" + color);
-            if (BuiltInRegistries.BLOCK.containsKey(candidate)) {
-                return candidate;
+        if (vanillaPath.endsWith("_candle") || vanillaPath.endsWith("_candle_cake")) {
+            @Nullable ResourceLocation candle = TfcRefs.get().decor(vanillaPath);
+            if (candle != null) {
+                return candle;
             }
         }
 
@@ -852,62 +986,37 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
 
     private static @Nullable ResourceLocation mapBeneathNether(String vanillaPath) {
         // Only called when we are in the Nether and Beneath is installed.
-        return switch (vanillaPath) {
-            case "crimson_planks" -> beneath("wood/planks/crimson");
-            case "crimson_slab" -> beneath("wood/planks/crimson_slab");
-            case "crimson_stairs" -> beneath("wood/planks/crimson_stairs");
-            case "crimson_door" -> beneath("wood/door/crimson");
-            case "crimson_trapdoor" -> beneath("wood/trapdoor/crimson");
-            case "crimson_button" -> beneath("wood/button/crimson");
-            case "crimson_pressure_plate" -> beneath("wood/pressure_plate/crimson");
-            case "crimson_fence" -> beneath("wood/fence/crimson");
-            case "crimson_fence_gate" -> beneath("wood/fence_gate/crimson");
-            case "crimson_stem" -> beneath("wood/log/crimson");
-            case "crimson_hyphae" -> beneath("wood/wood/crimson");
-            case "stripped_crimson_stem" -> beneath("wood/stripped_log/crimson");
-            case "stripped_crimson_hyphae" -> beneath("wood/stripped_wood/crimson");
-            case "warped_planks" -> beneath("wood/planks/warped");
-            case "warped_slab" -> beneath("wood/planks/warped_slab");
-            case "warped_stairs" -> beneath("wood/planks/warped_stairs");
-            case "warped_door" -> beneath("wood/door/warped");
-            case "warped_trapdoor" -> beneath("wood/trapdoor/warped");
-            case "warped_button" -> beneath("wood/button/warped");
-            case "warped_pressure_plate" -> beneath("wood/pressure_plate/warped");
-            case "warped_fence" -> beneath("wood/fence/warped");
-            case "warped_fence_gate" -> beneath("wood/fence_gate/warped");
-            case "warped_stem" -> beneath("wood/log/warped");
-            case "warped_hyphae" -> beneath("wood/wood/warped");
-            case "stripped_warped_stem" -> beneath("wood/stripped_log/warped");
-            case "stripped_warped_hyphae" -> beneath("wood/stripped_wood/warped");
-            case "nether_gold_ore" -> beneath("ore/normal_nether_gold");
-            default -> null;
-        };
+        return TfcRefs.get().beneath(vanillaPath);
     }
 
-    private static @Nullable ResourceLocation beneath(String path) {
-        ResourceLocation id = ResourceLocation.fromNamespaceAndPath(NS_BENEATH, path);
-        return BuiltInRegistries.BLOCK.containsKey(id) ? id : null;
-    }
+    static @Nullable CompoundTag replaceVanillaOreInStructureNbt(@Nullable CompoundTag nbt) {
+        if (nbt == null || !(nbt.get("final_state") instanceof StringTag tag)) {
+            return nbt;
+        }
 
-    private static @Nullable ResourceLocation firstExistingTfcBlock(String... candidatePaths) {
-        for (String candidatePath : candidatePaths) {
-            ResourceLocation id = ResourceLocation.fromNamespaceAndPath(NS_TFC, candidatePath);
-            if (BuiltInRegistries.BLOCK.containsKey(id)) {
-                return id;
+        String finalState = tag.getAsString();
+        Object rewritten = FinalStates.REWRITTEN.get(finalState);
+        if (rewritten == null) {
+            @Nullable String replaced = rewriteFinalState(finalState);
+            rewritten = replaced != null ? replaced : FinalStates.UNCHANGED;
+            if (FinalStates.REWRITTEN.size() < FinalStates.MAX_SIZE) {
+                FinalStates.REWRITTEN.putIfAbsent(finalState, rewritten);
             }
         }
-        return null;
-    }
-
-    private static @Nullable CompoundTag replaceVanillaOreInStructureNbt(@Nullable CompoundTag nbt) {
-        if (nbt == null || !nbt.contains("final_state", Tag.TAG_STRING)) {
+        if (rewritten == FinalStates.UNCHANGED) {
             return nbt;
         }
 
-        String finalState = nbt.getString("final_state");
+        CompoundTag out = nbt.copy();
+        out.putString("final_state", (String) rewritten);
+        return out;
+    }
+
+    /** Returns {@code finalState} with a vanilla ore swapped for its TFC counterpart, or null if there is none. */
+    private static @Nullable String rewriteFinalState(String finalState) {
         String trimmed = finalState.trim();
         if (trimmed.isEmpty() || !trimmed.contains("ore")) {
-            return nbt;
+            return null;
         }
 
         int separator = trimmed.length();
@@ -919,60 +1028,51 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
         String blockIdPart = trimmed.substring(0, separator).trim();
         ResourceLocation blockId = ResourceLocation.tryParse(blockIdPart);
         if (blockId == null || !NS_MINECRAFT.equals(blockId.getNamespace())) {
-            return nbt;
+            return null;
         }
 
         @Nullable ResourceLocation replacement = mapOre(blockId.getPath());
         if (replacement == null) {
-            return nbt;
-        }
-
-        String replacedState = replacement + trimmed.substring(separator);
-        CompoundTag out = nbt.copy();
-        out.putString("final_state", replacedState);
-        return out;
-    }
-
-    private static boolean replaceItemStackInTag(CompoundTag entityNbt, String key, String metal) {
-        if (!entityNbt.contains(key, Tag.TAG_COMPOUND)) {
-            return false;
+            return null;
         }
-        CompoundTag stack = entityNbt.getCompound(key);
-        return replaceItemStackId(stack, metal);
+        return replacement + trimmed.substring(separator);
     }
 
-    private static boolean replaceItemStacksInList(CompoundTag entityNbt, String key, String metal) {
-        if (!entityNbt.contains(key, Tag.TAG_LIST)) {
+    /**
+     * Translates the item stack(s) under {@code key}: a single stack compound, or a list of them. With {@code apply}
+     * false this only reports whether anything would change.
+     */
+    private static boolean translateStacks(
+            CompoundTag entityNbt, String key, Map<String, String> translation, boolean apply) {
+        @Nullable Tag tag = entityNbt.get(key);
+        if (tag instanceof CompoundTag stack) {
+            return translateStack(stack, translation, apply);
+        }
+        if (!(tag instanceof ListTag list)) {
             return false;
         }
-        ListTag list = entityNbt.getList(key, Tag.TAG_COMPOUND);
         boolean changed = false;
         for (int i = 0; i < list.size(); i++) {
-            CompoundTag stack = list.getCompound(i);
-            changed |= replaceItemStackId(stack, metal);
+            if (list.get(i) instanceof CompoundTag stack) {
+                changed |= translateStack(stack, translation, apply);
+                if (changed && !apply) {
+                    return true;
+                }
+            }
         }
         return changed;
     }
 
-    private static boolean replaceItemStackId(CompoundTag stackTag, String metal) {
-        if (!stackTag.contains("id", Tag.TAG_STRING)) {
-            return false;
-        }
-        String idStr = stackTag.getString("id");
-        if (idStr.isEmpty()) {
-            return false;
-        }
-        ResourceLocation id = ResourceLocation.tryParse(idStr);
-        if (id == null || !NS_MINECRAFT.equals(id.getNamespace())) {
+    private static boolean translateStack(CompoundTag stackTag, Map<String, String> translation, boolean apply) {
+        @Nullable String replacement = stackTag.get("id") instanceof StringTag id ? translation.get(id.getAsString()) : null;
+        if (replacement == null) {
             return false;
         }
-
-        @Nullable ResourceLocation replacement = mapVanillaEquipmentItem(id, metal);
-        if (replacement == null || !BuiltInRegistries.ITEM.containsKey(replacement)) {
-            return false;
+        if (!apply) {
+            return true;
         }
 
-        stackTag.putString("id", replacement.toString());
+        stackTag.putString("id", replacement);
         // Item-specific components from vanilla equipment can be invalid on TFC items (ex: trims, charged projectiles).
         stackTag.remove("components");
         stackTag.remove("tag");
@@ -981,37 +1081,7 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
         return true;
     }
 
-    private static @Nullable ResourceLocation mapVanillaEquipmentItem(ResourceLocation itemId, String metal) {
-        String p = itemId.getPath();
-
-        // Tools/weapons
-        if (p.endsWith("_sword")) return tfcItem("metal/sword/" + metal);
-        if (p.endsWith("_axe")) return tfcItem("metal/axe/" + metal);
-        if (p.endsWith("_pickaxe")) return tfcItem("metal/pickaxe/" + metal);
-        if (p.endsWith("_shovel")) return tfcItem("metal/shovel/" + metal);
-        if (p.endsWith("_hoe")) return tfcItem("metal/hoe/" + metal);
-
-        // Armor (vanilla leggings -> TFC greaves)
-        if (p.endsWith("_helmet")) return tfcItem("metal/helmet/" + metal);
-        if (p.endsWith("_chestplate")) return tfcItem("metal/chestplate/" + metal);
-        if (p.endsWith("_leggings")) return tfcItem("metal/greaves/" + metal);
-        if (p.endsWith("_boots")) return tfcItem("metal/boots/" + metal);
-
-        // Misc equipment
-        return switch (p) {
-            case "shield" -> tfcItem("metal/shield/" + metal);
-            case "bow", "crossbow", "trident" -> tfcItem("metal/javelin/" + metal);
-            case "mace" -> tfcItem("metal/mace/" + metal);
-            default -> null;
-        };
-    }
-
-    private static @Nullable ResourceLocation tfcItem(String path) {
-        ResourceLocation id = ResourceLocation.fromNamespaceAndPath(NS_TFC, path);
-        return BuiltInRegistries.ITEM.containsKey(id) ? id : null;
-    }
-
-    private static @Nullable String detectVanillaWoodType(String path) {
+    static @Nullable String detectVanillaWoodType(String path) {
         // Strip common prefixes first.
         String p = path;
         if (p.startsWith("stripped_")) {
@@ -1042,24 +1112,22 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
     }
 
     private static ResourceLocation tfcWoodPlanks(String wood, String suffix) {
-        String w = normalizeWood(wood);
-        ResourceLocation candidate = ResourceLocation.fromNamespaceAndPath(NS_TFC, "wood/planks/" + w + suffix);
-        if (BuiltInRegistries.BLOCK.containsKey(candidate)) {
-            return candidate;
+        @Nullable ResourceLocation resolved = TfcRefs.get().planks(suffix, wood);
+        if (resolved != null) {
+            return resolved;
         }
         return ResourceLocation.fromNamespaceAndPath(NS_TFC, "wood/planks/" + DEFAULT_WOOD + suffix);
     }
 
     private static ResourceLocation tfcWood(String prefix, String wood) {
-        String w = normalizeWood(wood);
-        ResourceLocation candidate = ResourceLocation.fromNamespaceAndPath(NS_TFC, prefix + w);
-        if (BuiltInRegistries.BLOCK.containsKey(candidate)) {
-            return candidate;
+        @Nullable ResourceLocation resolved = TfcRefs.get().wood(prefix, wood);
+        if (resolved != null) {
+            return resolved;
         }
         return ResourceLocation.fromNamespaceAndPath(NS_TFC, prefix + DEFAULT_WOOD);
     }
 
-    private static String normalizeWood(String wood) {
+    static String normalizeWood(String wood) {
         // TFC doesn't have all vanilla woods. These fallbacks keep the structure valid.
         if ("dark_oak".equals(wood)) return "oak";
         if ("jungle".equals(wood)) return "acacia";
@@ -1070,42 +1138,7 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
         return wood;
     }
 
-    private static @Nullable String findRockNameBelow(LevelReader level, BlockPos start) {
-        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos(start.getX(), start.getY(), start.getZ());
-        int minY = level.getMinBuildHeight();
-
-        for (int i = 0; i < 64 && cursor.getY() >= minY; i++) {
-            BlockState state = level.getBlockState(cursor);
-            @Nullable String rock = rockNameFromTfcBlock(state);
-            if (rock != null) {
-                return rock;
-            }
-            cursor.move(0, -1, 0);
-        }
-        return null;
-    }
-
-    private static @Nullable String findSoilNameBelow(LevelReader level, BlockPos start) {
-        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos(start.getX(), start.getY(), start.getZ());
-        int minY = level.getMinBuildHeight();
-
-        for (int i = 0; i < 64 && cursor.getY() >= minY; i++) {
-            BlockState state = level.getBlockState(cursor);
-            @Nullable String soil = soilNameFromTfcBlock(state);
-            if (soil != null) {
-                return soil;
-            }
-            cursor.move(0, -1, 0);
-        }
-        return null;
-    }
-
-    private static @Nullable String rockNameFromTfcBlock(BlockState state) {
-        ResourceLocation id = BuiltInRegistries.BLOCK.getKey(state.getBlock());
-        if (!NS_TFC.equals(id.getNamespace())) {
-            return null;
-        }
-        String path = id.getPath();
+    static @Nullable String rockNameFromTfcPath(String path) {
         if (!path.startsWith("rock/")) {
             return null;
         }
@@ -1117,12 +1150,7 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
         return tail.isEmpty() ? null : tail;
     }
 
-    private static @Nullable String soilNameFromTfcBlock(BlockState state) {
-        ResourceLocation id = BuiltInRegistries.BLOCK.getKey(state.getBlock());
-        if (!NS_TFC.equals(id.getNamespace())) {
-            return null;
-        }
-        String path = id.getPath();
+    static @Nullable String soilNameFromTfcPath(String path) {
         // Soil-like blocks have the soil type as the last path segment.
         if (!(path.startsWith("dirt/")
                 || path.startsWith("coarse_dirt/")
@@ -1141,27 +1169,4 @@ public final class TfcBlockReplacementProcessor extends StructureProcessor {
     private static String stripSuffix(String s, String suffix) {
         return s.endsWith(suffix) ? s.substring(0, s.length() - suffix.length()) : s;
     }
-
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    private static BlockState copyPropertiesByName(BlockState from, BlockState to) {
-        StateDefinition<Block, BlockState> def = to.getBlock().getStateDefinition();
-        for (Property<?> fromProp : from.getProperties()) {
-            Property<?> toProp = def.getProperty(fromProp.getName());
-            if (toProp == null) {
-                continue;
-            }
-
-            Comparable value = from.getValue((Property) fromProp);
-            if (!((Property) toProp).getPossibleValues().contains(value)) {
-                continue;
-            }
-
-            try {
-                to = to.setValue((Property) toProp, value);
-            } catch (Exception ignored) {
-                // Defensive: if a property value can't be applied, just skip it.
-            }
-        }
-        return to;
-    }
 }
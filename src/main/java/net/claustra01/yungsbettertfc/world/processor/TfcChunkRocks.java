@@ -0,0 +1,172 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import com.mojang.logging.LogUtils;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import javax.annotation.Nullable;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import org.slf4j.Logger;
+
+/**
+ * Optional access to TerraFirmaCraft's per-chunk rock layers.
+ *
+ * <p>TFC is only a runtime dependency (everything else probes its registry ids), so this binds to
+ * {@code ChunkData.get(level, pos).getRockData().getRock(x, y, z).raw()} reflectively, once, plus
+ * {@code ChunkData.get(chunk)} if TFC has it. If any of it is missing the lookup reports "unavailable" and callers fall
+ * back to scanning blocks.</p>
+ */
+final class TfcChunkRocks {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private static final @Nullable Binding BINDING = bind();
+
+    private TfcChunkRocks() {}
+
+    /** Returns TFC's raw rock block at {@code pos}, or null if chunk data isn't available there. */
+    static @Nullable Block rawRockAt(LevelReader level, BlockPos pos) {
+        Binding binding = BINDING;
+        if (binding == null) {
+            return null;
+        }
+        try {
+            return rawRock(binding, binding.get.invoke(null, level, binding.byChunkPos ? new ChunkPos(pos) : pos), pos);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Chunk data that isn't generated yet throws; treat it like any other miss.
+            return null;
+        }
+    }
+
+    /**
+     * Returns TFC's raw rock block at {@code pos} from the data attached to {@code chunk}, or null if there is none.
+     * Doesn't go through the level, so it is safe off the worldgen threads.
+     */
+    static @Nullable Block rawRockAt(ChunkAccess chunk, BlockPos pos) {
+        Binding binding = BINDING;
+        if (binding == null || binding.getByChunk == null) {
+            return null;
+        }
+        try {
+            return rawRock(binding, binding.getByChunk.invoke(null, chunk), pos);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fills {@code out[i]} with TFC's raw rock at the middle of the i-th {@link RockProfile#BAND}-block band above
+     * {@code minY}, in the column of {@code pos}. Returns false if chunk data isn't available there.
+     */
+    static boolean rawRockBands(LevelReader level, BlockPos pos, int minY, @Nullable Block[] out) {
+        Binding binding = BINDING;
+        if (binding == null) {
+            return false;
+        }
+        try {
+            Object chunkData = binding.get.invoke(null, level, binding.byChunkPos ? new ChunkPos(pos) : pos);
+            return rawRockBands(binding, chunkData, pos, minY, out);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /** Like {@link #rawRockBands(LevelReader, BlockPos, int, Block[])}, from the data attached to {@code chunk}. */
+    static boolean rawRockBands(ChunkAccess chunk, BlockPos pos, int minY, @Nullable Block[] out) {
+        Binding binding = BINDING;
+        if (binding == null || binding.getByChunk == null) {
+            return false;
+        }
+        try {
+            return rawRockBands(binding, binding.getByChunk.invoke(null, chunk), pos, minY, out);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean rawRockBands(
+            Binding binding, @Nullable Object chunkData, BlockPos pos, int minY, @Nullable Block[] out)
+            throws ReflectiveOperationException {
+        if (chunkData == null) {
+            return false;
+        }
+        Object rockData = binding.getRockData.invoke(chunkData);
+        if (rockData == null) {
+            return false;
+        }
+        for (int i = 0; i < out.length; i++) {
+            int y = minY + i * RockProfile.BAND + RockProfile.BAND / 2;
+            Object rock = binding.getRock.invoke(rockData, pos.getX(), y, pos.getZ());
+            out[i] = rock == null ? null : (Block) binding.raw.invoke(rock);
+        }
+        return true;
+    }
+
+    private static @Nullable Block rawRock(Binding binding, @Nullable Object chunkData, BlockPos pos)
+            throws ReflectiveOperationException {
+        if (chunkData == null) {
+            return null;
+        }
+        Object rockData = binding.getRockData.invoke(chunkData);
+        if (rockData == null) {
+            return null;
+        }
+        Object rock = binding.getRock.invoke(rockData, pos.getX(), pos.getY(), pos.getZ());
+        return rock == null ? null : (Block) binding.raw.invoke(rock);
+    }
+
+    private static @Nullable Binding bind() {
+        try {
+            Class<?> chunkDataClass = Class.forName("net.dries007.tfc.world.chunkdata.ChunkData");
+            @Nullable Method get = null;
+            @Nullable Method getByChunk = null;
+            boolean byChunkPos = false;
+            for (Method method : chunkDataClass.getMethods()) {
+                Class<?>[] params = method.getParameterTypes();
+                if (!"get".equals(method.getName()) || !Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                if (params.length == 1 && params[0].isAssignableFrom(ChunkAccess.class)) {
+                    getByChunk = method;
+                    continue;
+                }
+                if (params.length != 2 || !params[0].isAssignableFrom(LevelReader.class)) {
+                    continue;
+                }
+                // Prefer the BlockPos overload.
+                if (params[1] == BlockPos.class) {
+                    get = method;
+                    byChunkPos = false;
+                } else if (params[1] == ChunkPos.class && get == null) {
+                    get = method;
+                    byChunkPos = true;
+                }
+            }
+            if (get == null) {
+                throw new NoSuchMethodException("ChunkData.get(LevelReader, BlockPos|ChunkPos)");
+            }
+
+            Method getRockData = chunkDataClass.getMethod("getRockData");
+            Method getRock = getRockData.getReturnType().getMethod("getRock", int.class, int.class, int.class);
+            Method raw = getRock.getReturnType().getMethod("raw");
+            if (!Block.class.isAssignableFrom(raw.getReturnType())) {
+                throw new NoSuchMethodException("RockSettings.raw() does not return a Block");
+            }
+            LOGGER.debug("Using TFC chunk data for structure rock context.");
+            return new Binding(get, byChunkPos, getByChunk, getRockData, getRock, raw);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.debug("TFC chunk data unavailable, structure rock context falls back to block scans: {}", e.toString());
+            return null;
+        }
+    }
+
+    private record Binding(
+            Method get,
+            boolean byChunkPos,
+            @Nullable Method getByChunk,
+            Method getRockData,
+            Method getRock,
+            Method raw) {}
+}
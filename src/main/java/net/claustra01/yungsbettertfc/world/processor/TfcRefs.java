@@ -0,0 +1,326 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+import org.slf4j.Logger;
+
+/**
+ * TFC and Beneath ids the mapping code may point at, resolved against the frozen registries once.
+ *
+ * <p>Every candidate is checked for existence here, so mapping and NBT rewriting only do map reads. Candidates that
+ * don't exist are logged once, at build time.</p>
+ */
+final class TfcRefs {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    // Vanilla ore -> TFC ore candidates, first existing wins.
+    private static final Map<String, List<String>> ORE_CANDIDATES = Map.ofEntries(
+            Map.entry("coal_ore", List.of("ore/normal_lignite", "ore/normal_bituminous_coal")),
+            Map.entry("deepslate_coal_ore", List.of("ore/normal_lignite", "ore/normal_bituminous_coal")),
+            Map.entry("iron_ore", List.of("ore/normal_hematite", "ore/normal_magnetite", "ore/normal_limonite")),
+            Map.entry("deepslate_iron_ore",
+                    List.of("ore/normal_hematite", "ore/normal_magnetite", "ore/normal_limonite")),
+            Map.entry("copper_ore", List.of("ore/normal_native_copper")),
+            Map.entry("deepslate_copper_ore", List.of("ore/normal_native_copper")),
+            Map.entry("gold_ore", List.of("ore/normal_native_gold")),
+            Map.entry("deepslate_gold_ore", List.of("ore/normal_native_gold")),
+            Map.entry("nether_gold_ore", List.of("ore/normal_nether_gold", "ore/normal_native_gold")),
+            Map.entry("lapis_ore", List.of("ore/normal_lapis_lazuli")),
+            Map.entry("deepslate_lapis_ore", List.of("ore/normal_lapis_lazuli")),
+            Map.entry("diamond_ore", List.of("ore/normal_diamond")),
+            Map.entry("deepslate_diamond_ore", List.of("ore/normal_diamond")),
+            Map.entry("emerald_ore", List.of("ore/normal_emerald")),
+            Map.entry("deepslate_emerald_ore", List.of("ore/normal_emerald")),
+            Map.entry("redstone_ore", List.of("ore/normal_cinnabar")),
+            Map.entry("deepslate_redstone_ore", List.of("ore/normal_cinnabar")),
+            Map.entry("nether_quartz_ore", List.of("ore/normal_quartz")));
+
+    // Vanilla nether wood -> Beneath block.
+    private static final Map<String, String> BENEATH_BLOCKS = Map.ofEntries(
+            Map.entry("crimson_planks", "wood/planks/crimson"),
+            Map.entry("crimson_slab", "wood/planks/crimson_slab"),
+            Map.entry("crimson_stairs", "wood/planks/crimson_stairs"),
+            Map.entry("crimson_door", "wood/door/crimson"),
+            Map.entry("crimson_trapdoor", "wood/trapdoor/crimson"),
+            Map.entry("crimson_button", "wood/button/crimson"),
+            Map.entry("crimson_pressure_plate", "wood/pressure_plate/crimson"),
+            Map.entry("crimson_fence", "wood/fence/crimson"),
+            Map.entry("crimson_fence_gate", "wood/fence_gate/crimson"),
+            Map.entry("crimson_stem", "wood/log/crimson"),
+            Map.entry("crimson_hyphae", "wood/wood/crimson"),
+            Map.entry("stripped_crimson_stem", "wood/stripped_log/crimson"),
+            Map.entry("stripped_crimson_hyphae", "wood/stripped_wood/crimson"),
+            Map.entry("warped_planks", "wood/planks/warped"),
+            Map.entry("warped_slab", "wood/planks/warped_slab"),
+            Map.entry("warped_stairs", "wood/planks/warped_stairs"),
+            Map.entry("warped_door", "wood/door/warped"),
+            Map.entry("warped_trapdoor", "wood/trapdoor/warped"),
+            Map.entry("warped_button", "wood/button/warped"),
+            Map.entry("warped_pressure_plate", "wood/pressure_plate/warped"),
+            Map.entry("warped_fence", "wood/fence/warped"),
+            Map.entry("warped_fence_gate", "wood/fence_gate/warped"),
+            Map.entry("warped_stem", "wood/log/warped"),
+            Map.entry("warped_hyphae", "wood/wood/warped"),
+            Map.entry("stripped_warped_stem", "wood/stripped_log/warped"),
+            Map.entry("stripped_warped_hyphae", "wood/stripped_wood/warped"),
+            Map.entry("nether_gold_ore", "ore/normal_nether_gold"));
+
+    static final String METAL_DEFAULT = "wrought_iron";
+    static final String METAL_ENDGAME = "black_steel";
+    private static final List<String> EQUIPMENT_METALS = List.of(METAL_DEFAULT, METAL_ENDGAME);
+    private static final List<String> EQUIPMENT_KINDS = List.of(
+            "sword", "axe", "pickaxe", "shovel", "hoe", "helmet", "chestplate", "greaves", "boots", "shield", "javelin",
+            "mace");
+
+    static final List<String> WOOD_PREFIXES = List.of(
+            "wood/chest/",
+            "wood/trapped_chest/",
+            "wood/lectern/",
+            "wood/workbench/",
+            "wood/stripped_log/",
+            "wood/stripped_wood/",
+            "wood/log/",
+            "wood/wood/",
+            "wood/fence_gate/",
+            "wood/fence/",
+            "wood/door/",
+            "wood/trapdoor/",
+            "wood/pressure_plate/",
+            "wood/button/",
+            "wood/wall_sign/",
+            "wood/sign/");
+    static final List<String> PLANK_SUFFIXES = List.of("", "_stairs", "_slab");
+    // Wood hints that may reach tfcWood/tfcWoodPlanks besides the vanilla overworld woods.
+    private static final List<String> EXTRA_WOOD_HINTS = List.of("crimson", "warped");
+
+    private final Map<String, ResourceLocation> ores;
+    private final Map<String, ResourceLocation> beneath;
+    private final Map<String, ResourceLocation> decor;
+    // Metal -> vanilla item id (with and without namespace) -> TFC item id, straight from the NBT strings.
+    private final Map<String, Map<String, String>> equipment;
+    private final Map<String, Map<String, ResourceLocation>> woods;
+    private final Map<String, Map<String, ResourceLocation>> planks;
+
+    private TfcRefs(
+            Map<String, ResourceLocation> ores,
+            Map<String, ResourceLocation> beneath,
+            Map<String, ResourceLocation> decor,
+            Map<String, Map<String, String>> equipment,
+            Map<String, Map<String, ResourceLocation>> woods,
+            Map<String, Map<String, ResourceLocation>> planks) {
+        this.ores = ores;
+        this.beneath = beneath;
+        this.decor = decor;
+        this.equipment = equipment;
+        this.woods = woods;
+        this.planks = planks;
+    }
+
+    static TfcRefs get() {
+        return Holder.INSTANCE;
+    }
+
+    @Nullable ResourceLocation ore(String vanillaPath) {
+        return ores.get(vanillaPath);
+    }
+
+    @Nullable ResourceLocation beneath(String vanillaPath) {
+        return beneath.get(vanillaPath);
+    }
+
+    /** Potted plant, candle and candle cake replacements, keyed by vanilla block path. */
+    @Nullable ResourceLocation decor(String vanillaPath) {
+        return decor.get(vanillaPath);
+    }
+
+    /** Vanilla equipment item id -> TFC item id for one metal tier; empty for unknown metals. */
+    Map<String, String> equipment(String metal) {
+        return equipment.getOrDefault(metal, Map.of());
+    }
+
+    /** Returns the existing TFC block for {@code prefix + wood}, or null if the pair wasn't resolved. */
+    @Nullable ResourceLocation wood(String prefix, String wood) {
+        Map<String, ResourceLocation> byWood = woods.get(prefix);
+        return byWood == null ? null : byWood.get(wood);
+    }
+
+    @Nullable ResourceLocation planks(String suffix, String wood) {
+        Map<String, ResourceLocation> byWood = planks.get(suffix);
+        return byWood == null ? null : byWood.get(wood);
+    }
+
+    private static TfcRefs build() {
+        List<String> missing = new ArrayList<>();
+
+        Map<String, ResourceLocation> ores = new HashMap<>();
+        ORE_CANDIDATES.forEach((vanilla, candidates) -> {
+            for (String candidate : candidates) {
+                ResourceLocation id = ResourceLocation.fromNamespaceAndPath(TfcBlockReplacementProcessor.NS_TFC, candidate);
+                if (BuiltInRegistries.BLOCK.containsKey(id)) {
+                    ores.put(vanilla, id);
+                    return;
+                }
+            }
+            missing.add(TfcBlockReplacementProcessor.NS_TFC + ":" + candidates.get(0));
+        });
+
+        // Beneath is optional; only report its gaps if it's installed at all.
+        boolean beneathInstalled = BuiltInRegistries.BLOCK.keySet().stream()
+                .anyMatch(id -> TfcBlockReplacementProcessor.NS_BENEATH.equals(id.getNamespace()));
+        Map<String, ResourceLocation> beneath = new HashMap<>();
+        BENEATH_BLOCKS.forEach((vanilla, path) -> {
+            ResourceLocation id = ResourceLocation.fromNamespaceAndPath(TfcBlockReplacementProcessor.NS_BENEATH, path);
+            if (BuiltInRegistries.BLOCK.containsKey(id)) {
+                beneath.put(vanilla, id);
+            } else if (beneathInstalled) {
+                missing.add(id.toString());
+            }
+        });
+
+        Map<String, ResourceLocation> decor = new HashMap<>();
+        for (ResourceLocation id : BuiltInRegistries.BLOCK.keySet()) {
+            if (!TfcBlockReplacementProcessor.NS_MINECRAFT.equals(id.getNamespace())) {
+                continue;
+            }
+            @Nullable ResourceLocation candidate = decorCandidate(id.getPath());
+            if (candidate != null && BuiltInRegistries.BLOCK.containsKey(candidate)) {
+                decor.put(id.getPath(), candidate);
+            }
+        }
+
+        Map<String, Map<String, String>> equipment = new HashMap<>();
+        for (String metal : EQUIPMENT_METALS) {
+            Map<String, Item> byKind = new HashMap<>();
+            for (String kind : EQUIPMENT_KINDS) {
+                ResourceLocation id =
+                        ResourceLocation.fromNamespaceAndPath(TfcBlockReplacementProcessor.NS_TFC, "metal/" + kind + "/" + metal);
+                if (BuiltInRegistries.ITEM.containsKey(id)) {
+                    byKind.put(kind, BuiltInRegistries.ITEM.get(id));
+                } else {
+                    missing.add(id.toString());
+                }
+            }
+            equipment.put(metal, Map.copyOf(equipmentIds(equipmentItems(byKind))));
+        }
+
+        List<String> woodHints = new ArrayList<>(TfcBlockReplacementProcessor.VANILLA_WOOD_TYPES);
+        woodHints.addAll(EXTRA_WOOD_HINTS);
+
+        Map<String, Map<String, ResourceLocation>> woods = new HashMap<>();
+        for (String prefix : WOOD_PREFIXES) {
+            woods.put(prefix, resolveWoods(woodHints, wood -> prefix + wood, missing));
+        }
+        Map<String, Map<String, ResourceLocation>> planks = new HashMap<>();
+        for (String suffix : PLANK_SUFFIXES) {
+            planks.put(suffix, resolveWoods(woodHints, wood -> "wood/planks/" + wood + suffix, missing));
+        }
+
+        if (!missing.isEmpty()) {
+            LOGGER.warn("Missing TFC/Beneath ids, affected structure blocks keep vanilla or default variants: {}", missing);
+        }
+        return new TfcRefs(
+                Map.copyOf(ores), Map.copyOf(beneath), Map.copyOf(decor), Map.copyOf(equipment), Map.copyOf(woods),
+                Map.copyOf(planks));
+    }
+
+    /** Every vanilla equipment item mapped to its TFC counterpart of one metal tier. */
+    private static Reference2ReferenceOpenHashMap<Item, Item> equipmentItems(Map<String, Item> byKind) {
+        Reference2ReferenceOpenHashMap<Item, Item> items = new Reference2ReferenceOpenHashMap<>();
+        for (Map.Entry<ResourceKey<Item>, Item> entry : BuiltInRegistries.ITEM.entrySet()) {
+            ResourceLocation id = entry.getKey().location();
+            if (!TfcBlockReplacementProcessor.NS_MINECRAFT.equals(id.getNamespace())) {
+                continue;
+            }
+            @Nullable String kind = equipmentKind(id.getPath());
+            @Nullable Item target = kind == null ? null : byKind.get(kind);
+            if (target != null) {
+                items.put(entry.getValue(), target);
+            }
+        }
+        return items;
+    }
+
+    /** Indexes an item translation by the id strings item stacks store, so NBT never has to be parsed. */
+    private static Map<String, String> equipmentIds(Map<Item, Item> items) {
+        Map<String, String> ids = new HashMap<>();
+        items.forEach((from, to) -> {
+            ResourceLocation fromId = BuiltInRegistries.ITEM.getKey(from);
+            String toId = BuiltInRegistries.ITEM.getKey(to).toString();
+            ids.put(fromId.toString(), toId);
+            ids.put(fromId.getPath(), toId);
+        });
+        return ids;
+    }
+
+    private static @Nullable String equipmentKind(String p) {
+        // Tools/weapons
+        if (p.endsWith("_sword")) return "sword";
+        if (p.endsWith("_axe")) return "axe";
+        if (p.endsWith("_pickaxe")) return "pickaxe";
+        if (p.endsWith("_shovel")) return "shovel";
+        if (p.endsWith("_hoe")) return "hoe";
+
+        // Armor (vanilla leggings -> TFC greaves)
+        if (p.endsWith("_helmet")) return "helmet";
+        if (p.endsWith("_chestplate")) return "chestplate";
+        if (p.endsWith("_leggings")) return "greaves";
+        if (p.endsWith("_boots")) return "boots";
+
+        // Misc equipment
+        return switch (p) {
+            case "shield" -> "shield";
+            case "bow", "crossbow", "trident" -> "javelin";
+            case "mace" -> "mace";
+            default -> null;
+        };
+    }
+
+    /** Resolves each wood hint to its TFC block, falling back to the default wood like the mapping always has. */
+    private static Map<String, ResourceLocation> resolveWoods(
+            List<String> woodHints, Function<String, String> path, List<String> missing) {
+        ResourceLocation fallback = ResourceLocation.fromNamespaceAndPath(
+                TfcBlockReplacementProcessor.NS_TFC, path.apply(TfcBlockReplacementProcessor.DEFAULT_WOOD));
+        if (!BuiltInRegistries.BLOCK.containsKey(fallback)) {
+            missing.add(fallback.toString());
+        }
+
+        Map<String, ResourceLocation> byWood = new HashMap<>();
+        for (String hint : woodHints) {
+            ResourceLocation candidate = ResourceLocation.fromNamespaceAndPath(
+                    TfcBlockReplacementProcessor.NS_TFC, path.apply(TfcBlockReplacementProcessor.normalizeWood(hint)));
+            byWood.put(hint, BuiltInRegistries.BLOCK.containsKey(candidate) ? candidate : fallback);
+        }
+        return Map.copyOf(byWood);
+    }
+
+    private static @Nullable ResourceLocation decorCandidate(String vanillaPath) {
+        if (vanillaPath.startsWith("potted_")) {
+            String plant = vanillaPath.substring("potted_".length());
+            return ResourceLocation.fromNamespaceAndPath(TfcBlockReplacementProcessor.NS_TFC, "plant/potted/" + plant);
+        }
+        if (vanillaPath.endsWith("_candle_cake")) {
+            String color = vanillaPath.substring(0, vanillaPath.length() - "_candle_cake".length());
+            return ResourceLocation.fromNamespaceAndPath(TfcBlockReplacementProcessor.NS_TFC, "candle_cake/" + color);
+        }
+        if (vanillaPath.endsWith("_candle")) {
+            String color = vanillaPath.substring(0, vanillaPath.length() - "_candle".length());
+            return ResourceLocation.fromNamespaceAndPath(TfcBlockReplacementProcessor.NS_TFC, "candle/" + color);
+        }
+        return null;
+    }
+
+    // Lazy holder: candidates can only be checked once registries freeze.
+    private static final class Holder {
+        private static final TfcRefs INSTANCE = build();
+    }
+}
@@ -0,0 +1,99 @@
+package net.claustra01.yungsbettertfc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class LongClockCacheTest {
+    @Test
+    void capacityIsRoundedUpPerSegment() {
+        assertEquals(1000, new LongClockCache<String>(1000, 1).capacity());
+        // Three threads get four segments of 25.
+        assertEquals(100, new LongClockCache<String>(100, 3).capacity());
+        assertEquals(12, new LongClockCache<String>(10, 4).capacity());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        LongClockCache<String> cache = new LongClockCache<>(16, 1);
+        assertNull(cache.get(1L));
+        cache.put(1L, "one");
+        assertEquals("one", cache.get(1L));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void computeIfAbsentLoadsOnce() {
+        LongClockCache<String> cache = new LongClockCache<>(16, 4);
+        AtomicInteger loads = new AtomicInteger();
+        String first = cache.computeIfAbsent(7L, key -> {
+            loads.incrementAndGet();
+            return "v" + key;
+        });
+        String second = cache.computeIfAbsent(7L, key -> {
+            loads.incrementAndGet();
+            return "other";
+        });
+        assertEquals("v7", first);
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void putReplaces() {
+        LongClockCache<String> cache = new LongClockCache<>(16, 1);
+        cache.put(3L, "a");
+        cache.put(3L, "b");
+        assertEquals("b", cache.get(3L));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictsTheFirstEntryNotUsedSinceTheHandPassed() {
+        LongClockCache<String> cache = new LongClockCache<>(4, 1);
+        for (long key = 1; key <= 4; key++) {
+            cache.put(key, "v" + key);
+        }
+        cache.get(1L);
+        cache.put(5L, "v5");
+
+        // 1 got its second chance; 2 was the first cold entry.
+        assertEquals(1, cache.evictions());
+        assertEquals(4, cache.size());
+        assertNull(cache.get(2L));
+        assertEquals("v1", cache.get(1L));
+        assertEquals("v5", cache.get(5L));
+    }
+
+    @Test
+    void neverExceedsCapacity() {
+        LongClockCache<Long> cache = new LongClockCache<>(64, 4);
+        for (long key = 0; key < 10_000; key++) {
+            cache.computeIfAbsent(key, Long::valueOf);
+        }
+        assertEquals(cache.capacity(), cache.size());
+        assertEquals(10_000 - cache.capacity(), cache.evictions());
+    }
+
+    @Test
+    void forEachVisitsEveryEntryAndClearEmpties() {
+        LongClockCache<String> cache = new LongClockCache<>(32, 4);
+        for (long key = 0; key < 10; key++) {
+            cache.put(key, "v" + key);
+        }
+        Map<Long, String> seen = new HashMap<>();
+        cache.forEach(seen::put);
+        assertEquals(10, seen.size());
+        assertEquals("v9", seen.get(9L));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(9L));
+    }
+}
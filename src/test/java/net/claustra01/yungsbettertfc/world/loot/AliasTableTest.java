@@ -0,0 +1,63 @@
+package net.claustra01.yungsbettertfc.world.loot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import net.minecraft.util.RandomSource;
+import org.junit.jupiter.api.Test;
+
+class AliasTableTest {
+    private static final int DRAWS = 100_000;
+
+    @Test
+    void nothingToDraw() {
+        assertNull(AliasTable.of(List.of(), new double[0]));
+        assertNull(AliasTable.of(List.of("a", "b"), new double[] {0.0, -1.0}));
+    }
+
+    @Test
+    void singleValueIsAlwaysDrawn() {
+        AliasTable<String> table = AliasTable.of(List.of("a"), new double[] {3.0});
+        assertNotNull(table);
+        RandomSource random = RandomSource.create(1L);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("a", table.sample(random));
+        }
+    }
+
+    @Test
+    void drawsInProportionToWeight() {
+        double[] weights = {1.0, 2.0, 3.0, 4.0};
+        AliasTable<Integer> table = AliasTable.of(List.of(0, 1, 2, 3), weights);
+        assertNotNull(table);
+        assertEquals(4, table.size());
+
+        int[] counts = draw(table, 4);
+        for (int i = 0; i < weights.length; i++) {
+            // About six standard deviations at this many draws.
+            assertEquals(weights[i] / 10.0, counts[i] / (double) DRAWS, 0.01, "value " + i);
+        }
+    }
+
+    @Test
+    void neverDrawsNonPositiveWeights() {
+        AliasTable<Integer> table = AliasTable.of(List.of(0, 1, 2, 3), new double[] {0.0, 5.0, -2.0, 1.0});
+        assertNotNull(table);
+
+        int[] counts = draw(table, 4);
+        assertEquals(0, counts[0]);
+        assertEquals(0, counts[2]);
+        assertEquals(5.0 / 6.0, counts[1] / (double) DRAWS, 0.01);
+    }
+
+    private static int[] draw(AliasTable<Integer> table, int values) {
+        RandomSource random = RandomSource.create(42L);
+        int[] counts = new int[values];
+        for (int i = 0; i < DRAWS; i++) {
+            counts[table.sample(random)]++;
+        }
+        return counts;
+    }
+}
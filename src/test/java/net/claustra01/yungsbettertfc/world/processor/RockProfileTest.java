@@ -0,0 +1,63 @@
+package net.claustra01.yungsbettertfc.world.processor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class RockProfileTest {
+    @Test
+    void bandsWithoutRockTakeTheRockBelowOrAtTheBottomAbove() {
+        RockProfile profile = RockProfile.of(0, new int[] {-1, 3, -1, 5});
+        assertNotNull(profile);
+        assertArrayEquals(new byte[] {3, 3, 3, 5}, profile.bandRocks());
+        assertEquals(31, profile.maxY());
+    }
+
+    @Test
+    void noRockOrTooManyRocks() {
+        assertNull(RockProfile.of(0, new int[] {-1, -1}));
+        assertNull(RockProfile.of(0, new int[] {1, 0xFF}));
+    }
+
+    @Test
+    void rockAtClampsToTheNearestBand() {
+        RockProfile profile = RockProfile.of(-64, new int[] {1, 2, 200});
+        assertNotNull(profile);
+        assertEquals(1, profile.rockAt(-64));
+        assertEquals(2, profile.rockAt(-56));
+        assertEquals(200, profile.rockAt(-41));
+        assertEquals(1, profile.rockAt(-1000));
+        assertEquals(200, profile.rockAt(1000));
+    }
+
+    @Test
+    void coversAndUniformity() {
+        RockProfile profile = RockProfile.of(0, new int[] {4, 4, 4, 6});
+        assertNotNull(profile);
+        assertTrue(profile.covers(0, 31));
+        assertFalse(profile.covers(-1, 10));
+        assertFalse(profile.covers(0, 32));
+        assertTrue(profile.isUniform(0, 23));
+        assertFalse(profile.isUniform(0, 24));
+    }
+
+    @Test
+    void restoreRemapsSavedIds() {
+        int[] ids = new int[6];
+        Arrays.fill(ids, -1);
+        ids[3] = 7;
+        ids[5] = 1;
+        RockProfile restored = RockProfile.restore(16, new byte[] {3, 5}, ids);
+        assertNotNull(restored);
+        assertEquals(7, restored.rockAt(16));
+        assertEquals(1, restored.rockAt(24));
+
+        assertNull(RockProfile.restore(16, new byte[] {3, 4}, ids));
+    }
+}